@@ -0,0 +1,266 @@
+package de.monochromata.jactr.remma;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import de.monochromata.jactr.remma.REMMAModule.JSONKey;
+import de.monochromata.jactr.tls.LexicalFeatures;
+
+/**
+ * The difference between the entries of an ast.json file that have been
+ * loaded into REMMA and the entries of a new version of that file (or of a
+ * fragment of it that contains all entries for a single URI).
+ * <p>
+ * Entries are compared via their IDs and a fingerprint of their JSON
+ * content, so the loaded JSON objects need not be retained.
+ * <p>
+ * An ID may occur several times in ast.json, e.g. a schema generated from
+ * a binding is overwritten by the schema of the declaration later on. The
+ * fingerprint of an ID therefore covers all its occurrences in file order,
+ * and all occurrences of added or replaced IDs are loaded again.
+ */
+public class AstDelta {
+
+	private final String uri;
+	private final List<JSONObject> addedEntries;
+	private final List<JSONObject> replacedEntries;
+	private final List<String> removedIds;
+	private final List<JSONObject> entriesToLoad;
+
+	protected AstDelta(String uri, List<JSONObject> addedEntries,
+			List<JSONObject> replacedEntries, List<String> removedIds,
+			List<JSONObject> entriesToLoad) {
+		this.uri = uri;
+		this.addedEntries = addedEntries;
+		this.replacedEntries = replacedEntries;
+		this.removedIds = removedIds;
+		this.entriesToLoad = entriesToLoad;
+	}
+
+	/**
+	 * Computes the difference between the loaded entries and the given new entries.
+	 *
+	 * @param loadedEntries the entries that have been loaded, by ID
+	 * @param newEntries the outermost JSON array of the new ast.json
+	 * @param uri If null, newEntries is a complete ast.json and all loaded entries
+	 * 	that are missing from it are removed. Otherwise, newEntries is a fragment
+	 * 	and only loaded entries that are located in the given URI are removed, if
+	 * 	they are missing from the fragment.
+	 */
+	public static AstDelta compute(Map<String,Entry> loadedEntries,
+			JSONArray newEntries, String uri) {
+		int length = newEntries.length();
+		Map<String,Long> newFingerprints = new HashMap<>();
+		for(int i=0;i<length;i++) {
+			JSONObject obj = newEntries.getJSONObject(i);
+			newFingerprints.merge(obj.getString(JSONKey.ID.name()), fingerprint(obj),
+					AstDelta::combineFingerprints);
+		}
+		List<JSONObject> added = new ArrayList<>();
+		List<JSONObject> replaced = new ArrayList<>();
+		List<JSONObject> entriesToLoad = new ArrayList<>();
+		for(int i=0;i<length;i++) {
+			JSONObject obj = newEntries.getJSONObject(i);
+			String id = obj.getString(JSONKey.ID.name());
+			Entry loadedEntry = loadedEntries.get(id);
+			if(loadedEntry == null) {
+				added.add(obj);
+				entriesToLoad.add(obj);
+			} else if(loadedEntry.getFingerprint() != newFingerprints.get(id)) {
+				replaced.add(obj);
+				entriesToLoad.add(obj);
+			}
+		}
+		List<String> removed = new ArrayList<>();
+		for(Map.Entry<String,Entry> loadedEntry: loadedEntries.entrySet()) {
+			if(!newFingerprints.containsKey(loadedEntry.getKey())
+					&& (uri == null || uri.equals(loadedEntry.getValue().getUri()))) {
+				removed.add(loadedEntry.getKey());
+			}
+		}
+		return new AstDelta(uri, added, replaced, removed, entriesToLoad);
+	}
+
+	/**
+	 * Creates the entry that is retained for the given JSON object after it
+	 * has been loaded. Needs to be invoked before the object is loaded, because
+	 * loading may modify nested objects.
+	 */
+	public static Entry createEntry(JSONObject obj, String conceptualType) {
+		String uri = null;
+		int line = -1;
+		if(obj.has(JSONKey.SF.name())) {
+			JSONObject spatialFeatures = obj.getJSONObject(JSONKey.SF.name());
+			if(spatialFeatures.has("uri"))
+				uri = spatialFeatures.getString("uri");
+			if(spatialFeatures.has("startLine"))
+				line = spatialFeatures.getInt("startLine");
+		}
+		String graphemic = null;
+		if(obj.has(JSONKey.LF.name())) {
+			graphemic = obj.getJSONObject(JSONKey.LF.name()).optString(LexicalFeatures.graphemic.name(), null);
+		}
+		return new Entry(conceptualType, fingerprint(obj), uri, line, graphemic);
+	}
+
+	/**
+	 * Returns a 64-bit hash of the given JSON value that does not depend on
+	 * the order of keys in JSON objects.
+	 */
+	@SuppressWarnings("unchecked")
+	public static long fingerprint(Object value) {
+		if(value instanceof JSONObject) {
+			JSONObject obj = (JSONObject)value;
+			long hash = 0x9E3779B97F4A7C15L;
+			Iterator<String> keys = (Iterator<String>)obj.keys();
+			while(keys.hasNext()) {
+				String key = keys.next();
+				// Order-independent combination of the key-value pairs
+				hash += mix(key.hashCode()*0x100000001B3L ^ fingerprint(obj.get(key)));
+			}
+			return hash;
+		} else if(value instanceof JSONArray) {
+			JSONArray array = (JSONArray)value;
+			long hash = 0xC2B2AE3D27D4EB4FL;
+			for(int i=0;i<array.length();i++) {
+				hash = mix(hash*31 + fingerprint(array.get(i)));
+			}
+			return hash;
+		} else if(value == null || value == JSONObject.NULL) {
+			return 0;
+		} else {
+			return mix(value.toString().hashCode() ^ ((long)value.getClass().hashCode() << 32));
+		}
+	}
+
+	/**
+	 * Combines the fingerprints of two occurrences of the same ID, in file order.
+	 */
+	public static long combineFingerprints(long previous, long next) {
+		return mix(previous*31 + next);
+	}
+
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xFF51AFD7ED558CCDL;
+		value ^= value >>> 33;
+		value *= 0xC4CEB9FE1A85EC53L;
+		value ^= value >>> 33;
+		return value;
+	}
+
+	/**
+	 * @return the URI that the delta is restricted to, or null, if the delta
+	 * 	has been computed from a complete ast.json file
+	 */
+	public String getUri() {
+		return uri;
+	}
+
+	/**
+	 * @return all occurrences of the IDs of added entries, in file order
+	 */
+	public List<JSONObject> getAddedEntries() {
+		return Collections.unmodifiableList(addedEntries);
+	}
+
+	/**
+	 * @return all occurrences of the IDs of replaced entries, in file order
+	 */
+	public List<JSONObject> getReplacedEntries() {
+		return Collections.unmodifiableList(replacedEntries);
+	}
+
+	/**
+	 * @return the added and replaced entries, in file order
+	 */
+	public List<JSONObject> getEntriesToLoad() {
+		return Collections.unmodifiableList(entriesToLoad);
+	}
+
+	public List<String> getRemovedIds() {
+		return Collections.unmodifiableList(removedIds);
+	}
+
+	public boolean isEmpty() {
+		return addedEntries.isEmpty() && replacedEntries.isEmpty() && removedIds.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "AstDelta [uri=" + uri + ", added=" + addedEntries.size()
+				+ ", replaced=" + replacedEntries.size() + ", removed="
+				+ removedIds.size() + "]";
+	}
+
+	/**
+	 * The information that is retained for a loaded entry of ast.json.
+	 */
+	public static class Entry {
+
+		private final String conceptualType;
+		private final long fingerprint;
+		private final String uri;
+		private final int line;
+		private final String graphemic;
+
+		public Entry(String conceptualType, long fingerprint, String uri,
+				int line, String graphemic) {
+			this.conceptualType = conceptualType;
+			this.fingerprint = fingerprint;
+			this.uri = uri;
+			this.line = line;
+			this.graphemic = graphemic;
+		}
+
+		/**
+		 * Combines this entry with the entry of a later occurrence of the same
+		 * ID. The later occurrence overwrites the earlier one when loaded, but
+		 * the spatial and lexical features of the earlier occurrence are
+		 * retained, if the later occurrence has none.
+		 */
+		public Entry merge(Entry later) {
+			return new Entry(later.conceptualType,
+					combineFingerprints(fingerprint, later.fingerprint),
+					later.uri != null?later.uri:uri,
+					later.uri != null?later.line:line,
+					later.graphemic != null?later.graphemic:graphemic);
+		}
+
+		public String getConceptualType() {
+			return conceptualType;
+		}
+
+		public long getFingerprint() {
+			return fingerprint;
+		}
+
+		/**
+		 * @return the URI from the spatial features, or null, if the entry has no spatial features
+		 */
+		public String getUri() {
+			return uri;
+		}
+
+		/**
+		 * @return the start line from the spatial features, or -1, if the entry has no spatial features
+		 */
+		public int getLine() {
+			return line;
+		}
+
+		/**
+		 * @return the graphemic from the lexical features, or null, if the entry has no lexical features
+		 */
+		public String getGraphemic() {
+			return graphemic;
+		}
+	}
+}
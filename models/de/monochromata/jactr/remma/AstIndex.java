@@ -0,0 +1,428 @@
+package de.monochromata.jactr.remma;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONObject;
+
+import de.monochromata.jactr.remma.REMMAModule.JSONKey;
+import de.monochromata.jactr.tls.LexicalFeatures;
+
+/**
+ * An index of the byte ranges of the schemata, words and reference potentials
+ * in an ast.json file that is memory-mapped, so that entries can be decoded
+ * when they are needed instead of materializing the whole file at once.
+ * <p>
+ * The index is stored next to ast.json in a file with the suffix
+ * {@value #INDEX_SUFFIX} and is re-built when ast.json has changed. The index
+ * file is written to a temporary file first and then renamed, so that an
+ * interrupted build never leaves an incomplete index behind.
+ * <p>
+ * Only the positions, byte ranges and graphemics of words are kept in memory,
+ * sorted by URI, line and column, with each distinct graphemic stored once.
+ * Other entries are passed to a consumer once while the index is opened,
+ * because TWM requires them to be registered up-front.
+ */
+public class AstIndex implements AutoCloseable {
+
+	private static final transient Log LOGGER = LogFactory.getLog(AstIndex.class);
+
+	public static final String INDEX_SUFFIX = ".idx";
+
+	private static final int MAGIC = 0x52454d41;
+	private static final int VERSION = 3;
+	private static final int SEGMENT_SIZE = 1<<30;
+	private static final byte KIND_WORD = 0,
+							  KIND_OTHER = 1;
+
+	private final File jsonFile;
+	private final Charset charset;
+	private final RandomAccessFile file;
+	private final MappedByteBuffer[] segments;
+
+	private final Map<String,Integer> uriIndices = new HashMap<>();
+	private String[] graphemics;
+	private int[] wordGraphemics;
+	private int[] wordStartsByUri;
+	private long[] wordPositions;
+	private long[] wordEnds;
+	private long[] wordMaxEnds;
+	private long[] wordOffsets;
+	private int[] wordByteLengths;
+
+	private AstIndex(File jsonFile, Charset charset) throws IOException {
+		this.jsonFile = jsonFile;
+		this.charset = charset;
+		this.file = new RandomAccessFile(jsonFile, "r");
+		FileChannel channel = file.getChannel();
+		long size = channel.size();
+		segments = new MappedByteBuffer[(int)((size+SEGMENT_SIZE-1)/SEGMENT_SIZE)];
+		for(int i=0;i<segments.length;i++) {
+			long start = (long)i*SEGMENT_SIZE;
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+					Math.min(SEGMENT_SIZE, size-start));
+		}
+	}
+
+	/**
+	 * Opens the index of the given ast.json file, building it first, if it does
+	 * not exist or is out of date, and passes all entries that are not words to
+	 * the given consumer.
+	 */
+	public static AstIndex open(File jsonFile, Consumer<JSONObject> nonWordConsumer) throws IOException {
+		AstIndex index = new AstIndex(jsonFile, Charset.defaultCharset());
+		try {
+			File indexFile = new File(jsonFile.getPath()+INDEX_SUFFIX);
+			if(!index.isUpToDate(indexFile)) {
+				LOGGER.info("Building index "+indexFile);
+				index.build(indexFile);
+			}
+			index.load(indexFile, nonWordConsumer);
+			return index;
+		} catch(IOException|RuntimeException e) {
+			index.close();
+			throw e;
+		}
+	}
+
+	private boolean isUpToDate(File indexFile) throws IOException {
+		if(!indexFile.exists())
+			return false;
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			return in.readInt() == MAGIC
+					&& in.readInt() == VERSION
+					&& in.readLong() == jsonFile.length()
+					&& in.readLong() == jsonFile.lastModified();
+		}
+	}
+
+	/**
+	 * Scans ast.json for the objects in the outermost array and writes their
+	 * IDs and byte ranges to the given index file.
+	 */
+	private void build(File indexFile) throws IOException {
+		Interner uris = new Interner();
+		Interner graphemics = new Interner();
+		File entriesFile = new File(indexFile.getPath()+".entries.tmp");
+		File tmpFile = new File(indexFile.getPath()+".tmp");
+		try {
+			try(InputStream in = new BufferedInputStream(new FileInputStream(jsonFile), 1<<16);
+				DataOutputStream entries = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(entriesFile), 1<<16))) {
+				ByteArrayOutputStream object = new ByteArrayOutputStream();
+				long offset = 0;
+				long objectStart = -1;
+				int depth = 0;
+				boolean inString = false, escaped = false;
+				int count = 0;
+				int b;
+				while((b = in.read()) != -1) {
+					if(depth >= 2) {
+						object.write(b);
+					}
+					if(inString) {
+						if(escaped) {
+							escaped = false;
+						} else if(b == '\\') {
+							escaped = true;
+						} else if(b == '"') {
+							inString = false;
+						}
+					} else if(b == '"') {
+						inString = true;
+					} else if(b == '[' || b == '{') {
+						if(depth == 1 && b == '{') {
+							objectStart = offset;
+							object.reset();
+							object.write(b);
+						}
+						depth++;
+					} else if(b == ']' || b == '}') {
+						depth--;
+						if(depth == 1 && b == '}') {
+							JSONObject obj = new JSONObject(new String(object.toByteArray(), charset));
+							writeEntry(entries, obj, objectStart, (int)(offset+1-objectStart), uris, graphemics);
+							count++;
+						}
+					}
+					offset++;
+				}
+				entries.writeByte(-1);
+				LOGGER.info("Indexed "+count+" entries of "+jsonFile);
+			}
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1<<16));
+				InputStream entries = new BufferedInputStream(new FileInputStream(entriesFile), 1<<16)) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(jsonFile.length());
+				out.writeLong(jsonFile.lastModified());
+				uris.write(out);
+				graphemics.write(out);
+				byte[] buffer = new byte[1<<16];
+				int read;
+				while((read = entries.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+				}
+			}
+			Files.move(tmpFile.toPath(), indexFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			entriesFile.delete();
+			tmpFile.delete();
+		}
+	}
+
+	private void writeEntry(DataOutputStream out, JSONObject obj, long start, int byteLength,
+			Interner uris, Interner graphemics) throws IOException {
+		boolean isWord = obj.getString(JSONKey.CT.name()).equals("Word");
+		out.writeByte(isWord?KIND_WORD:KIND_OTHER);
+		out.writeUTF(obj.getString(JSONKey.ID.name()));
+		out.writeLong(start);
+		out.writeInt(byteLength);
+		if(isWord) {
+			JSONObject spatialFeatures = obj.getJSONObject(JSONKey.SF.name());
+			out.writeInt(uris.intern(spatialFeatures.getString("uri")));
+			out.writeInt(spatialFeatures.getInt("startLine"));
+			out.writeInt(spatialFeatures.getInt("startColumn"));
+			out.writeInt(spatialFeatures.optInt("length", 1));
+			out.writeInt(graphemics.intern(obj.getJSONObject(JSONKey.LF.name())
+					.getString(LexicalFeatures.graphemic.name())));
+		}
+	}
+
+	private void load(File indexFile, Consumer<JSONObject> nonWordConsumer) throws IOException {
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), 1<<16))) {
+			in.readInt(); // magic
+			in.readInt(); // version
+			in.readLong(); // length
+			in.readLong(); // last modified
+			int numberOfUris = in.readInt();
+			for(int i=0;i<numberOfUris;i++) {
+				uriIndices.put(in.readUTF(), i);
+			}
+			graphemics = new String[in.readInt()];
+			for(int i=0;i<graphemics.length;i++) {
+				graphemics[i] = in.readUTF();
+			}
+			int capacity = 1024, size = 0;
+			int[] uris = new int[capacity];
+			long[] positions = new long[capacity];
+			int[] lengths = new int[capacity];
+			long[] offsets = new long[capacity];
+			int[] byteLengths = new int[capacity];
+			int[] graphemicIndices = new int[capacity];
+			byte kind;
+			while((kind = in.readByte()) != -1) {
+				in.readUTF(); // id
+				long start = in.readLong();
+				int byteLength = in.readInt();
+				if(kind == KIND_WORD) {
+					if(size == capacity) {
+						capacity *= 2;
+						uris = Arrays.copyOf(uris, capacity);
+						positions = Arrays.copyOf(positions, capacity);
+						lengths = Arrays.copyOf(lengths, capacity);
+						offsets = Arrays.copyOf(offsets, capacity);
+						byteLengths = Arrays.copyOf(byteLengths, capacity);
+						graphemicIndices = Arrays.copyOf(graphemicIndices, capacity);
+					}
+					uris[size] = in.readInt();
+					positions[size] = toPosition(in.readInt(), in.readInt());
+					lengths[size] = Math.max(1, in.readInt());
+					graphemicIndices[size] = in.readInt();
+					offsets[size] = start;
+					byteLengths[size] = byteLength;
+					size++;
+				} else {
+					nonWordConsumer.accept(decode(start, byteLength));
+				}
+			}
+			sortWords(uris, positions, lengths, offsets, byteLengths, graphemicIndices, size, numberOfUris);
+		}
+	}
+
+	/**
+	 * Sorts the words by URI, line and column and retains the order of
+	 * words at the same position.
+	 */
+	private void sortWords(int[] uris, long[] positions, int[] lengths, long[] offsets,
+			int[] byteLengths, int[] graphemicIndices, int size, int numberOfUris) {
+		Integer[] order = new Integer[size];
+		for(int i=0;i<size;i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (i1, i2) -> {
+			int result = Integer.compare(uris[i1], uris[i2]);
+			return result != 0?result:Long.compare(positions[i1], positions[i2]);
+		});
+		wordStartsByUri = new int[numberOfUris+1];
+		wordPositions = new long[size];
+		wordEnds = new long[size];
+		wordMaxEnds = new long[size];
+		wordOffsets = new long[size];
+		wordByteLengths = new int[size];
+		wordGraphemics = new int[size];
+		for(int i=0;i<size;i++) {
+			int j = order[i];
+			wordPositions[i] = positions[j];
+			wordEnds[i] = positions[j]+lengths[j];
+			// The running maximum restarts at each URI
+			wordMaxEnds[i] = (i == 0 || uris[order[i-1]] != uris[j])?wordEnds[i]:Math.max(wordEnds[i], wordMaxEnds[i-1]);
+			wordOffsets[i] = offsets[j];
+			wordByteLengths[i] = byteLengths[j];
+			wordGraphemics[i] = graphemicIndices[j];
+			wordStartsByUri[uris[j]+1] = i+1;
+		}
+		for(int i=1;i<wordStartsByUri.length;i++) {
+			wordStartsByUri[i] = Math.max(wordStartsByUri[i], wordStartsByUri[i-1]);
+		}
+	}
+
+	static long toPosition(int line, int column) {
+		return ((long)line << 32) | (column & 0xffffffffL);
+	}
+
+	/**
+	 * @return the ordinal of the first word at the given position, or -1, if there is no such word
+	 */
+	public int getWordOrdinal(String uri, int line, int column) {
+		Integer uriIndex = uriIndices.get(uri);
+		if(uriIndex == null)
+			return -1;
+		int from = wordStartsByUri[uriIndex],
+			to = wordStartsByUri[uriIndex+1];
+		long position = toPosition(line, column);
+		// Lower bound, to return the first of multiple words at the same position
+		from = lowerBound(from, to, position);
+		return (from < to && wordPositions[from] == position)?from:-1;
+	}
+
+	/**
+	 * @return the ordinal of the narrowest word whose span contains the given
+	 * 	position, or -1, if there is no such word
+	 */
+	public int getCoveringWordOrdinal(String uri, int line, int column) {
+		Integer uriIndex = uriIndices.get(uri);
+		if(uriIndex == null)
+			return -1;
+		int from = wordStartsByUri[uriIndex],
+			to = wordStartsByUri[uriIndex+1];
+		long position = toPosition(line, column);
+		int covering = -1;
+		long coveringLength = Long.MAX_VALUE;
+		for(int i=lowerBound(from, to, position+1)-1;i>=from && wordMaxEnds[i] > position;i--) {
+			if(wordEnds[i] > position && wordEnds[i]-wordPositions[i] < coveringLength) {
+				covering = i;
+				coveringLength = wordEnds[i]-wordPositions[i];
+			}
+		}
+		return covering;
+	}
+
+	private int lowerBound(int from, int to, long position) {
+		while(from < to) {
+			int middle = (from+to) >>> 1;
+			if(wordPositions[middle] < position)
+				from = middle+1;
+			else
+				to = middle;
+		}
+		return from;
+	}
+
+	public int getNumberOfWords() {
+		return wordPositions.length;
+	}
+
+	/**
+	 * @return the graphemic of the word with the given ordinal, without decoding the word
+	 */
+	public String getGraphemic(int ordinal) {
+		return graphemics[wordGraphemics[ordinal]];
+	}
+
+	/**
+	 * @return the distinct graphemics of all words
+	 */
+	public List<String> getGraphemics() {
+		return Collections.unmodifiableList(Arrays.asList(graphemics));
+	}
+
+	/**
+	 * Decodes the word with the given ordinal from the mapped ast.json.
+	 */
+	public JSONObject decodeWord(int ordinal) {
+		return decode(wordOffsets[ordinal], wordByteLengths[ordinal]);
+	}
+
+	private JSONObject decode(long start, int byteLength) {
+		byte[] bytes = new byte[byteLength];
+		int segment = (int)(start/SEGMENT_SIZE);
+		int position = (int)(start%SEGMENT_SIZE);
+		int copied = 0;
+		while(copied < byteLength) {
+			ByteBuffer buffer = segments[segment].duplicate();
+			buffer.position(position);
+			int length = Math.min(byteLength-copied, buffer.remaining());
+			buffer.get(bytes, copied, length);
+			copied += length;
+			segment++;
+			position = 0;
+		}
+		return new JSONObject(new String(bytes, charset));
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/**
+	 * Assigns consecutive indices to distinct strings while the index is built.
+	 */
+	private static class Interner {
+
+		private final List<String> strings = new ArrayList<>();
+		private final Map<String,Integer> indices = new HashMap<>();
+
+		public int intern(String string) {
+			Integer index = indices.get(string);
+			if(index == null) {
+				index = strings.size();
+				strings.add(string);
+				indices.put(string, index);
+			}
+			return index;
+		}
+
+		public void write(DataOutputStream out) throws IOException {
+			out.writeInt(strings.size());
+			for(String string: strings) {
+				out.writeUTF(string);
+			}
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package de.monochromata.jactr.remma;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jactr.core.chunk.IChunk;
+import org.jactr.core.module.declarative.IDeclarativeModule;
+
+import de.monochromata.jactr.tls.Word;
+
+/**
+ * Prepares the chunks for the words of upcoming fixations on a helper thread,
+ * while the model still processes earlier fixations.
+ * <p>
+ * For each word, the matching reference potential or word is resolved and
+ * its chunk is looked up in declarative memory. The helper thread only reads:
+ * creating chunks, adding them to declarative memory, setting anaphor meta
+ * data and ensuring lexicalized schemata is left to the model thread.
+ * <p>
+ * {@link #prepare(Fixation)}, {@link #take(Fixation.Word)} and {@link #clear()}
+ * must be invoked on the model thread. Preparations that are not complete
+ * when they are taken are discarded, so that the model thread never waits
+ * for the helper thread, except in {@link #clear()}.
+ */
+public class ChunkPrematerializer {
+
+	private static final transient Log LOGGER = LogFactory.getLog(ChunkPrematerializer.class);
+
+	/**
+	 * The number of prepared words retained per fixation, before the oldest
+	 * prepared words are discarded
+	 */
+	private static final int WORDS_PER_FIXATION = 16;
+
+	private final REMMAModule module;
+	private final int maxFixations;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "REMMA chunk prematerializer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Map<Fixation.Word,Future<PreparedChunk>> preparedChunks;
+
+	public ChunkPrematerializer(REMMAModule module, int maxFixations) {
+		this.module = module;
+		this.maxFixations = maxFixations;
+		final int maxWords = maxFixations*WORDS_PER_FIXATION;
+		this.preparedChunks = new LinkedHashMap<Fixation.Word,Future<PreparedChunk>>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Fixation.Word,Future<PreparedChunk>> eldest) {
+				return size() > maxWords;
+			}
+		};
+	}
+
+	/**
+	 * @return the number of upcoming fixations to prepare chunks for
+	 */
+	public int getMaxFixations() {
+		return maxFixations;
+	}
+
+	/**
+	 * Starts preparing the chunks of the foveated and parafoveated words of
+	 * the given fixation, unless they are being prepared already.
+	 */
+	public void prepare(Fixation fixation) {
+		prepare(fixation.getFoveatedWord());
+		for(Fixation.Word word: fixation.getParafoveatedWords()) {
+			prepare(word);
+		}
+	}
+
+	private void prepare(Fixation.Word word) {
+		if(word != null && !preparedChunks.containsKey(word)) {
+			long generation = module.getLexicalEntryGeneration();
+			preparedChunks.put(word, executor.submit(() -> prepare(word, generation)));
+		}
+	}
+
+	private PreparedChunk prepare(Fixation.Word word, long generation)
+			throws InterruptedException, ExecutionException {
+		if(generation != module.getLexicalEntryGeneration()) {
+			// Out of date, will be discarded by take(Fixation.Word)
+			return new PreparedChunk(generation, null, null);
+		}
+		Word match = module.getReferencePotentialOrWord(word.getUri(), word.getLine(), word.getColumn());
+		if(match == null) {
+			return new PreparedChunk(generation, null, null);
+		}
+		IDeclarativeModule dm = module.getModel().getDeclarativeModule();
+		return new PreparedChunk(generation, match, dm.getChunk(match.getId()).get());
+	}
+
+	/**
+	 * Removes the preparation for the given word.
+	 *
+	 * @return the prepared chunk, or null, if the word has not been prepared,
+	 * 	if the preparation is not complete yet or if it is out of date
+	 */
+	public PreparedChunk take(Fixation.Word word) {
+		Future<PreparedChunk> future = preparedChunks.remove(word);
+		if(future == null || !future.isDone())
+			return null;
+		try {
+			PreparedChunk prepared = future.get();
+			return prepared.generation == module.getLexicalEntryGeneration()?prepared:null;
+		} catch (InterruptedException | ExecutionException e) {
+			LOGGER.warn("Failed to prepare chunk for "+word+": "+e.getMessage(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Discards all preparations and waits until a preparation that is
+	 * currently running has finished, so that the module can be reset safely.
+	 */
+	public void clear() {
+		for(Future<PreparedChunk> future: preparedChunks.values()) {
+			future.cancel(false);
+		}
+		preparedChunks.clear();
+		try {
+			// The executor is single-threaded, hence no preparation runs once
+			// this task has been executed
+			executor.submit(() -> {}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | RejectedExecutionException e) {
+			LOGGER.warn("Failed to wait for running preparations: "+e.getMessage(), e);
+		}
+	}
+
+	public void shutdown() {
+		clear();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The result of preparing the chunk of a single word.
+	 */
+	public static class PreparedChunk {
+
+		private final long generation;
+		private final Word match;
+		private final IChunk chunk;
+
+		private PreparedChunk(long generation, Word match, IChunk chunk) {
+			this.generation = generation;
+			this.match = match;
+			this.chunk = chunk;
+		}
+
+		/**
+		 * @return the reference potential or word at the position of the
+		 * 	prepared word, or null, if there was none at the time of the
+		 * 	preparation
+		 */
+		public Word getMatch() {
+			return match;
+		}
+
+		/**
+		 * @return the chunk of {@link #getMatch()} that was in declarative
+		 * 	memory, or null, if there was none at the time of the preparation
+		 */
+		public IChunk getChunk() {
+			return chunk;
+		}
+	}
+}
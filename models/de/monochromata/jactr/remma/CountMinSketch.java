@@ -0,0 +1,109 @@
+package de.monochromata.jactr.remma;
+
+import java.util.Arrays;
+
+/**
+ * Counts occurrences of words in a fixed amount of memory, so that
+ * frequencies can be estimated from the words encountered while the model
+ * is running.
+ * <p>
+ * Each word is counted in one cell of each of {@value #DEPTH} rows, and its
+ * count is estimated as the minimum of these cells. Estimates may exceed but
+ * never fall below the true counts. Only the smallest cells of a word are
+ * incremented (conservative update), which reduces overestimation. Once the
+ * total count reaches {@value #MAX_TOTAL}, all counts are halved, so that
+ * counters cannot overflow however long the model runs.
+ * <p>
+ * Words are counted case-insensitively. Instances are not thread-safe.
+ */
+public class CountMinSketch {
+
+	private static final int DEPTH = 4;
+	private static final long MAX_TOTAL = 1L<<30;
+	private static final int SEED = 0x5eed;
+
+	private final int width;
+	private final int[] counts;
+	private long total = 0;
+
+	/**
+	 * @param width the number of cells per row, rounded up to a power of two
+	 */
+	public CountMinSketch(int width) {
+		if(width <= 0)
+			throw new IllegalArgumentException("Width must be positive: "+width);
+		int powerOfTwo = 1;
+		while(powerOfTwo < width) {
+			powerOfTwo <<= 1;
+		}
+		this.width = powerOfTwo;
+		this.counts = new int[DEPTH*powerOfTwo];
+	}
+
+	/**
+	 * Counts an occurrence of the given word.
+	 */
+	public void add(CharSequence word) {
+		long hash = FrequencyLexicon.hash(word, 0, word.length(), SEED);
+		int min = Integer.MAX_VALUE;
+		for(int row=0;row<DEPTH;row++) {
+			min = Math.min(min, counts[getCell(hash, row)]);
+		}
+		for(int row=0;row<DEPTH;row++) {
+			int cell = getCell(hash, row);
+			if(counts[cell] == min)
+				counts[cell]++;
+		}
+		if(++total >= MAX_TOTAL)
+			halve();
+	}
+
+	/**
+	 * @return the estimated number of occurrences of the given word
+	 */
+	public int estimate(CharSequence word) {
+		long hash = FrequencyLexicon.hash(word, 0, word.length(), SEED);
+		int min = Integer.MAX_VALUE;
+		for(int row=0;row<DEPTH;row++) {
+			min = Math.min(min, counts[getCell(hash, row)]);
+		}
+		return min;
+	}
+
+	/**
+	 * @return the number of occurrences of all words, after halving
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	private void halve() {
+		for(int i=0;i<counts.length;i++) {
+			counts[i] >>>= 1;
+		}
+		total >>>= 1;
+	}
+
+	private int getCell(long hash, int row) {
+		int h1 = (int)hash;
+		int h2 = (int)(hash>>>32)|1;
+		return row*width+((h1+row*h2)&(width-1));
+	}
+
+	/**
+	 * @return the estimated number of bytes retained by the sketch
+	 * @see HeapFootprint
+	 */
+	long estimateBytes() {
+		return HeapFootprint.estimateObject(1, 12)+HeapFootprint.estimateArray(counts.length, 4);
+	}
+
+	public void clear() {
+		Arrays.fill(counts, 0);
+		total = 0;
+	}
+}
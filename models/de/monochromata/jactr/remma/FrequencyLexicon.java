@@ -0,0 +1,351 @@
+package de.monochromata.jactr.remma;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Relative word frequencies from a corpus, compiled into a minimal perfect
+ * hash with the frequencies in primitive arrays.
+ * <p>
+ * Words are looked up case-insensitively. Identifiers that are not contained
+ * in the lexicon are split at camelCase boundaries, digits and other
+ * non-letters, and the frequency of the rarest contained segment is used, so
+ * that e.g. {@code getFrequency} is encoded like {@code frequency}. Lookups
+ * neither allocate nor depend on the size of the lexicon.
+ * <p>
+ * The minimal perfect hash uses hash-and-displace: keys are distributed into
+ * buckets of about {@value #KEYS_PER_BUCKET} keys, and each bucket stores a
+ * displacement that maps its keys to distinct slots, or the slot of its only
+ * key. Because any string maps to some slot, the key in the slot is compared
+ * to the looked-up string.
+ */
+public class FrequencyLexicon {
+
+	private static final int KEYS_PER_BUCKET = 4;
+	private static final int MAX_SEEDS = 16;
+	private static final int MAX_DISPLACEMENT = 1<<20;
+
+	private final int seed;
+	private final int[] displacements;
+	private final char[] keyChars;
+	/**
+	 * The keys of slot i are keyChars[keyOffsets[i]] until keyChars[keyOffsets[i+1]]
+	 */
+	private final int[] keyOffsets;
+	private final double[] frequencies;
+	private final double[] negativeLogFrequencies;
+
+	private FrequencyLexicon(int seed, int[] displacements, char[] keyChars,
+			int[] keyOffsets, double[] frequencies) {
+		this.seed = seed;
+		this.displacements = displacements;
+		this.keyChars = keyChars;
+		this.keyOffsets = keyOffsets;
+		this.frequencies = frequencies;
+		this.negativeLogFrequencies = new double[frequencies.length];
+		for(int i=0;i<frequencies.length;i++) {
+			negativeLogFrequencies[i] = -Math.log(frequencies[i]);
+		}
+	}
+
+	/**
+	 * Loads a lexicon from a UTF-8 encoded file that contains one word and its
+	 * relative frequency between 0.0 (exclusive) and 1.0 per line, separated by
+	 * whitespace. Empty lines and lines starting with # are ignored. If a
+	 * word occurs repeatedly, ignoring case, its highest frequency is used.
+	 */
+	public static FrequencyLexicon load(File file) throws IOException {
+		Map<String,Double> frequenciesByWord = new LinkedHashMap<>();
+		try(BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#"))
+					continue;
+				String[] fields = line.split("\\s+");
+				if(fields.length != 2)
+					throw new IllegalArgumentException("Expected word and frequency in "
+							+file+":"+lineNumber+": "+line);
+				double frequency = Double.parseDouble(fields[1]);
+				if(!(frequency > 0.0 && frequency <= 1.0))
+					throw new IllegalArgumentException("Frequency out of range (0.0,1.0] in "
+							+file+":"+lineNumber+": "+line);
+				frequenciesByWord.merge(fields[0].toLowerCase(Locale.ROOT), frequency, Math::max);
+			}
+		}
+		return create(frequenciesByWord);
+	}
+
+	/**
+	 * @param frequenciesByWord relative frequencies of lower-case words
+	 */
+	public static FrequencyLexicon create(Map<String,Double> frequenciesByWord) {
+		String[] keys = frequenciesByWord.keySet().toArray(new String[frequenciesByWord.size()]);
+		for(int seed=0;seed<MAX_SEEDS;seed++) {
+			int[] slots = new int[keys.length];
+			int[] displacements = createDisplacements(keys, seed, slots);
+			if(displacements != null) {
+				String[] keysBySlot = new String[keys.length];
+				double[] frequencies = new double[keys.length];
+				for(int i=0;i<keys.length;i++) {
+					keysBySlot[slots[i]] = keys[i];
+					frequencies[slots[i]] = frequenciesByWord.get(keys[i]);
+				}
+				int[] keyOffsets = new int[keys.length+1];
+				for(int i=0;i<keys.length;i++) {
+					keyOffsets[i+1] = keyOffsets[i]+keysBySlot[i].length();
+				}
+				char[] keyChars = new char[keyOffsets[keys.length]];
+				for(int i=0;i<keys.length;i++) {
+					keysBySlot[i].getChars(0, keysBySlot[i].length(), keyChars, keyOffsets[i]);
+				}
+				return new FrequencyLexicon(seed, displacements, keyChars, keyOffsets, frequencies);
+			}
+		}
+		throw new IllegalStateException("Failed to create perfect hash for "+keys.length+" words");
+	}
+
+	/**
+	 * Assigns a distinct slot to every key, starting with the largest buckets.
+	 *
+	 * @return the displacements of the buckets, or null, if the given seed
+	 * 	does not permit a perfect hash
+	 */
+	private static int[] createDisplacements(String[] keys, int seed, int[] slots) {
+		int n = keys.length;
+		int bucketCount = getBucketCount(n);
+		long[] hashes = new long[n];
+		int[] buckets = new int[n];
+		// The keys of bucket b are bucketKeys[bucketStarts[b]] until bucketKeys[bucketStarts[b+1]]
+		int[] bucketStarts = new int[bucketCount+1];
+		for(int i=0;i<n;i++) {
+			hashes[i] = hash(keys[i], 0, keys[i].length(), seed);
+			buckets[i] = getBucket(hashes[i], bucketCount);
+			bucketStarts[buckets[i]+1]++;
+		}
+		int maxBucketSize = 0;
+		for(int b=0;b<bucketCount;b++) {
+			maxBucketSize = Math.max(maxBucketSize, bucketStarts[b+1]);
+			bucketStarts[b+1] += bucketStarts[b];
+		}
+		int[] bucketKeys = new int[n];
+		int[] fill = Arrays.copyOf(bucketStarts, bucketCount);
+		for(int i=0;i<n;i++) {
+			bucketKeys[fill[buckets[i]]++] = i;
+		}
+		// Order the buckets by decreasing size, via counting sort
+		int[] sizeStarts = new int[maxBucketSize+2];
+		for(int b=0;b<bucketCount;b++) {
+			sizeStarts[maxBucketSize-getSize(bucketStarts, b)+1]++;
+		}
+		for(int i=0;i<=maxBucketSize;i++) {
+			sizeStarts[i+1] += sizeStarts[i];
+		}
+		int[] order = new int[bucketCount];
+		for(int b=0;b<bucketCount;b++) {
+			order[sizeStarts[maxBucketSize-getSize(bucketStarts, b)]++] = b;
+		}
+
+		int[] displacements = new int[bucketCount];
+		boolean[] occupied = new boolean[n];
+		int nextFreeSlot = 0;
+		for(int b: order) {
+			int from = bucketStarts[b], to = bucketStarts[b+1];
+			if(from == to) {
+				break;
+			} else if(to-from == 1) {
+				// Single keys are assigned to free slots directly
+				while(occupied[nextFreeSlot]) {
+					nextFreeSlot++;
+				}
+				occupied[nextFreeSlot] = true;
+				slots[bucketKeys[from]] = nextFreeSlot;
+				displacements[b] = -nextFreeSlot-1;
+				continue;
+			}
+			boolean placed = false;
+			for(int d=0;d<MAX_DISPLACEMENT && !placed;d++) {
+				placed = true;
+				for(int i=from;i<to && placed;i++) {
+					int slot = getSlot(hashes[bucketKeys[i]], d, n);
+					if(occupied[slot]) {
+						placed = false;
+					} else {
+						for(int j=from;j<i;j++) {
+							if(slots[bucketKeys[j]] == slot)
+								placed = false;
+						}
+					}
+					slots[bucketKeys[i]] = slot;
+				}
+				if(placed) {
+					for(int i=from;i<to;i++) {
+						occupied[slots[bucketKeys[i]]] = true;
+					}
+					displacements[b] = d;
+				}
+			}
+			if(!placed)
+				return null;
+		}
+		return displacements;
+	}
+
+	private static int getSize(int[] bucketStarts, int bucket) {
+		return bucketStarts[bucket+1]-bucketStarts[bucket];
+	}
+
+	/**
+	 * @return the number of words in the lexicon
+	 */
+	public int size() {
+		return frequencies.length;
+	}
+
+	/**
+	 * @return the relative frequency of the given word or identifier, or the
+	 * 	given default frequency, if neither it nor any of its segments are
+	 * 	contained in the lexicon
+	 */
+	public double getFrequency(String word, double defaultFrequency) {
+		int slot = getSlotOfRarest(word);
+		return slot == -1?defaultFrequency:frequencies[slot];
+	}
+
+	/**
+	 * @return -ln of the frequency of the given word or identifier, or the
+	 * 	given default, if neither it nor any of its segments are contained in
+	 * 	the lexicon
+	 * @see #getFrequency(String, double)
+	 */
+	public double getNegativeLogFrequency(String word, double defaultNegativeLogFrequency) {
+		int slot = getSlotOfRarest(word);
+		return slot == -1?defaultNegativeLogFrequency:negativeLogFrequencies[slot];
+	}
+
+	/**
+	 * @return the slot of the given word, or of its rarest segment, or -1, if
+	 * 	neither is contained in the lexicon
+	 */
+	private int getSlotOfRarest(String word) {
+		int slot = getSlot(word, 0, word.length());
+		if(slot != -1)
+			return slot;
+		int rarest = -1;
+		int start = -1;
+		for(int i=0;i<=word.length();i++) {
+			if(start != -1 && isSegmentEnd(word, start, i)) {
+				int segmentSlot = getSlot(word, start, i);
+				if(segmentSlot != -1 && (rarest == -1 || frequencies[segmentSlot] < frequencies[rarest]))
+					rarest = segmentSlot;
+				start = -1;
+			}
+			if(start == -1 && i < word.length() && Character.isLetter(word.charAt(i)))
+				start = i;
+		}
+		return rarest;
+	}
+
+	/**
+	 * Whether the segment that starts at the given index ends before the
+	 * given index: at the end of the word, at a non-letter, before an upper-case
+	 * letter that follows a lower-case letter, and before the last upper-case
+	 * letter of an acronym that is followed by a lower-case letter, e.g. in
+	 * {@code HTMLParser}.
+	 */
+	private static boolean isSegmentEnd(String word, int start, int index) {
+		if(index == word.length())
+			return true;
+		char c = word.charAt(index);
+		if(!Character.isLetter(c))
+			return true;
+		if(index == start || !Character.isUpperCase(c))
+			return false;
+		char previous = word.charAt(index-1);
+		return Character.isLowerCase(previous)
+				|| (index+1 < word.length() && Character.isLowerCase(word.charAt(index+1)));
+	}
+
+	/**
+	 * @return the slot of the given range of the given string, or -1, if it is
+	 * 	not contained in the lexicon
+	 */
+	private int getSlot(CharSequence string, int from, int to) {
+		int n = frequencies.length;
+		if(n == 0)
+			return -1;
+		long hash = hash(string, from, to, seed);
+		int displacement = displacements[getBucket(hash, displacements.length)];
+		int slot = displacement < 0?-displacement-1:getSlot(hash, displacement, n);
+		int offset = keyOffsets[slot];
+		if(keyOffsets[slot+1]-offset != to-from)
+			return -1;
+		for(int i=from;i<to;i++) {
+			if(Character.toLowerCase(string.charAt(i)) != keyChars[offset+i-from])
+				return -1;
+		}
+		return slot;
+	}
+
+	/**
+	 * @return the estimated number of bytes retained by the lexicon
+	 * @see HeapFootprint
+	 */
+	long estimateBytes() {
+		return HeapFootprint.estimateObject(5, 4)
+				+HeapFootprint.estimateArray(displacements.length, 4)
+				+HeapFootprint.estimateArray(keyChars.length, 2)
+				+HeapFootprint.estimateArray(keyOffsets.length, 4)
+				+2*HeapFootprint.estimateArray(frequencies.length, 8);
+	}
+
+	private static int getBucketCount(int keys) {
+		return Math.max(1, (keys+KEYS_PER_BUCKET-1)/KEYS_PER_BUCKET);
+	}
+
+	private static int getBucket(long hash, int bucketCount) {
+		return (int)((hash>>>33)%bucketCount);
+	}
+
+	private static int getSlot(long hash, int displacement, int n) {
+		int h1 = (int)hash;
+		int h2 = (int)(hash>>>32)|1;
+		return Math.floorMod(mix(h1+displacement*h2), n);
+	}
+
+	/**
+	 * FNV-1a over the lower-case characters of the given range, followed by
+	 * the finalizer of MurmurHash3.
+	 */
+	static long hash(CharSequence string, int from, int to, int seed) {
+		long hash = 0xcbf29ce484222325L^seed;
+		for(int i=from;i<to;i++) {
+			hash ^= Character.toLowerCase(string.charAt(i));
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash>>>33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash>>>33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash>>>33;
+		return hash;
+	}
+
+	private static int mix(int h) {
+		h ^= h>>>16;
+		h *= 0x85ebca6b;
+		h ^= h>>>13;
+		h *= 0xc2b2ae35;
+		h ^= h>>>16;
+		return h;
+	}
+}
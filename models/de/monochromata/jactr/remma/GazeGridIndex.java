@@ -0,0 +1,133 @@
+package de.monochromata.jactr.remma;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A uniform grid over screen coordinates that indexes the words displayed on
+ * a single page, to find the words within a given visual angle of a point of
+ * regard.
+ * <p>
+ * Words extend horizontally from their absolute center by half their length
+ * in characters times the width of a character, assuming a monospaced font.
+ * Distances are computed from the point of regard to the closest point of
+ * that extent, so that a long identifier that is fixated near one of its
+ * ends is found. A word is indexed in all grid cells that its extent covers.
+ */
+public class GazeGridIndex {
+
+	private final int cellSizePx;
+	private final double characterWidthPx;
+	private final double horizontalResolutionPxPerMM,
+						 verticalResolutionPxPerMM,
+						 distanceToScreenMM;
+	private final Map<Long,List<Fixation.Word>> cells = new HashMap<>();
+	private final Set<Fixation.Word> words = new HashSet<>();
+
+	/**
+	 * @param characterWidthPx the width of a character, or 0 to index words
+	 * 	by their centers only
+	 */
+	public GazeGridIndex(int cellSizePx, double characterWidthPx, double horizontalResolutionPxPerMM,
+			double verticalResolutionPxPerMM, double distanceToScreenMM) {
+		if(cellSizePx <= 0)
+			throw new IllegalArgumentException("Cell size must be positive: "+cellSizePx);
+		if(characterWidthPx < 0)
+			throw new IllegalArgumentException("Character width must not be negative: "+characterWidthPx);
+		this.cellSizePx = cellSizePx;
+		this.characterWidthPx = characterWidthPx;
+		this.horizontalResolutionPxPerMM = horizontalResolutionPxPerMM;
+		this.verticalResolutionPxPerMM = verticalResolutionPxPerMM;
+		this.distanceToScreenMM = distanceToScreenMM;
+	}
+
+	/**
+	 * Adds the given word, unless it has been added before.
+	 */
+	public void add(Fixation.Word word) {
+		if(words.add(word)) {
+			int cellY = cellOf(word.getAbsoluteCenterY());
+			for(int cellX=cellOf((int)Math.floor(getLeft(word)));
+					cellX<=cellOf((int)Math.ceil(getRight(word)));cellX++) {
+				cells.computeIfAbsent(toCell(cellX, cellY), cell -> new ArrayList<>()).add(word);
+			}
+		}
+	}
+
+	public int size() {
+		return words.size();
+	}
+
+	/**
+	 * @return the words that are at most the given number of degrees of
+	 * 	visual angle away from the given point, in the order in which they
+	 * 	have been added per grid cell
+	 */
+	public List<Fixation.Word> getWordsWithin(int x, int y, double degrees) {
+		double radiusMM = distanceToScreenMM * Math.tan(degrees * Math.PI / 360.0);
+		int radiusXPx = (int)Math.ceil(radiusMM * horizontalResolutionPxPerMM),
+			radiusYPx = (int)Math.ceil(radiusMM * verticalResolutionPxPerMM);
+		// Words that cover several cells are found repeatedly
+		Set<Fixation.Word> result = new LinkedHashSet<>();
+		for(int cellX=cellOf(x-radiusXPx);cellX<=cellOf(x+radiusXPx);cellX++) {
+			for(int cellY=cellOf(y-radiusYPx);cellY<=cellOf(y+radiusYPx);cellY++) {
+				List<Fixation.Word> wordsInCell = cells.get(toCell(cellX, cellY));
+				if(wordsInCell != null) {
+					for(Fixation.Word word: wordsInCell) {
+						if(getDistanceInDegreesOfVisualAngle(x, y, word) <= degrees) {
+							result.add(word);
+						}
+					}
+				}
+			}
+		}
+		return new ArrayList<>(result);
+	}
+
+	/**
+	 * @return the word that is closest to the given point and at most
+	 * 	the given number of degrees of visual angle away from it, or null, if
+	 * 	there is no such word
+	 */
+	public Fixation.Word getClosestWordWithin(int x, int y, double degrees) {
+		Fixation.Word closest = null;
+		double closestDistance = Double.MAX_VALUE;
+		for(Fixation.Word word: getWordsWithin(x, y, degrees)) {
+			double distance = getDistanceInDegreesOfVisualAngle(x, y, word);
+			if(distance < closestDistance) {
+				closest = word;
+				closestDistance = distance;
+			}
+		}
+		return closest;
+	}
+
+	private double getDistanceInDegreesOfVisualAngle(int x, int y, Fixation.Word word) {
+		double closestX = Math.max(getLeft(word), Math.min(x, getRight(word)));
+		double distanceXMM = (x-closestX)/horizontalResolutionPxPerMM;
+		double distanceYMM = (y-word.getAbsoluteCenterY())/verticalResolutionPxPerMM;
+		double distanceInMM = Math.sqrt( (distanceXMM*distanceXMM) + (distanceYMM*distanceYMM) );
+		return (180.0/Math.PI) * 2 * Math.atan( distanceInMM / distanceToScreenMM );
+	}
+
+	private double getLeft(Fixation.Word word) {
+		return word.getAbsoluteCenterX()-word.getLength()*characterWidthPx/2.0;
+	}
+
+	private double getRight(Fixation.Word word) {
+		return word.getAbsoluteCenterX()+word.getLength()*characterWidthPx/2.0;
+	}
+
+	private int cellOf(int px) {
+		return Math.floorDiv(px, cellSizePx);
+	}
+
+	private static long toCell(int cellX, int cellY) {
+		return ((long)cellX << 32) | (cellY & 0xffffffffL);
+	}
+}
@@ -0,0 +1,186 @@
+package de.monochromata.jactr.remma;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Entry counts and estimated retained bytes of the data structures of REMMA
+ * at a point in time, together with the numbers of synthetic words and
+ * schemata that have been created while the model was running.
+ * <p>
+ * Bytes are estimated for a 64-bit JVM with compressed references and
+ * compact strings, based on the numbers and lengths of the contained
+ * objects. Objects shared with other modules, e.g. reference potentials
+ * that are also held by TWM, are counted where REMMA stores them.
+ */
+public class HeapFootprint {
+
+	static final int REFERENCE_BYTES = 4;
+	static final int OBJECT_HEADER_BYTES = 12;
+	static final int ARRAY_HEADER_BYTES = 16;
+	/**
+	 * A node of a hash map with key, value, next reference and hash
+	 */
+	static final int HASH_ENTRY_BYTES = 32;
+	static final int LINKED_LIST_NODE_BYTES = 24;
+
+	private final long timestampMs;
+	private final List<Structure> structures = new ArrayList<>();
+	private final long syntheticWordsAtRuntime, syntheticSchemataAtRuntime;
+
+	public HeapFootprint(long timestampMs, long syntheticWordsAtRuntime,
+			long syntheticSchemataAtRuntime) {
+		this.timestampMs = timestampMs;
+		this.syntheticWordsAtRuntime = syntheticWordsAtRuntime;
+		this.syntheticSchemataAtRuntime = syntheticSchemataAtRuntime;
+	}
+
+	public HeapFootprint add(String name, long entries, long estimatedBytes) {
+		structures.add(new Structure(name, entries, estimatedBytes));
+		return this;
+	}
+
+	public long getTimestampMs() {
+		return timestampMs;
+	}
+
+	public List<Structure> getStructures() {
+		return Collections.unmodifiableList(structures);
+	}
+
+	/**
+	 * @return the structure with the given name, or null, if there is no such structure
+	 */
+	public Structure getStructure(String name) {
+		for(Structure structure: structures) {
+			if(structure.getName().equals(name))
+				return structure;
+		}
+		return null;
+	}
+
+	public long getTotalEstimatedBytes() {
+		long total = 0;
+		for(Structure structure: structures) {
+			total += structure.getEstimatedBytes();
+		}
+		return total;
+	}
+
+	/**
+	 * @return the number of CS#UniqueWord$ words created while the model was running
+	 */
+	public long getSyntheticWordsAtRuntime() {
+		return syntheticWordsAtRuntime;
+	}
+
+	/**
+	 * @return the number of CS#Synthetic$ and CS#Unique$ schemata created
+	 * 	while the model was running
+	 */
+	public long getSyntheticSchemataAtRuntime() {
+		return syntheticSchemataAtRuntime;
+	}
+
+	/**
+	 * Returns a single line of key=value pairs that summarizes all structures.
+	 */
+	public String toSummary() {
+		StringBuilder builder = new StringBuilder("REMMA heap totalEstimatedBytes=")
+				.append(getTotalEstimatedBytes())
+				.append(" syntheticWordsAtRuntime=").append(syntheticWordsAtRuntime)
+				.append(" syntheticSchemataAtRuntime=").append(syntheticSchemataAtRuntime);
+		for(Structure structure: structures) {
+			builder.append(' ').append(structure.getName())
+				.append("[entries=").append(structure.getEntries())
+				.append(" estimatedBytes=").append(structure.getEstimatedBytes())
+				.append(']');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns a single line of key=value pairs with the growth of each
+	 * structure since the given earlier footprint.
+	 */
+	public String toGrowthSummary(HeapFootprint baseline) {
+		StringBuilder builder = new StringBuilder("REMMA heap growth ms=")
+				.append(timestampMs-baseline.timestampMs)
+				.append(" estimatedBytes=").append(getTotalEstimatedBytes()-baseline.getTotalEstimatedBytes())
+				.append(" syntheticWordsAtRuntime=").append(syntheticWordsAtRuntime-baseline.syntheticWordsAtRuntime)
+				.append(" syntheticSchemataAtRuntime=").append(syntheticSchemataAtRuntime-baseline.syntheticSchemataAtRuntime);
+		for(Structure structure: structures) {
+			Structure before = baseline.getStructure(structure.getName());
+			long entriesBefore = before == null?0:before.getEntries();
+			long bytesBefore = before == null?0:before.getEstimatedBytes();
+			builder.append(' ').append(structure.getName())
+				.append("[entries=").append(structure.getEntries()-entriesBefore)
+				.append(" estimatedBytes=").append(structure.getEstimatedBytes()-bytesBefore)
+				.append(']');
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return toSummary();
+	}
+
+	/**
+	 * @return the estimated size of an object with the given numbers of
+	 * 	references and bytes of primitive fields, aligned to 8 bytes
+	 */
+	static long estimateObject(int references, int primitiveBytes) {
+		return align(OBJECT_HEADER_BYTES+references*REFERENCE_BYTES+primitiveBytes);
+	}
+
+	static long estimateArray(long length, int elementBytes) {
+		return align(ARRAY_HEADER_BYTES+length*elementBytes);
+	}
+
+	/**
+	 * @return the estimated size of the given string, or 0, if it is null
+	 */
+	static long estimateString(String string) {
+		return string == null?0:estimateObject(1, 8)+estimateArray(string.length(), 1);
+	}
+
+	private static long align(long bytes) {
+		return (bytes+7) & ~7L;
+	}
+
+	/**
+	 * The entry count and estimated retained bytes of a single data structure.
+	 */
+	public static class Structure {
+
+		private final String name;
+		private final long entries;
+		private final long estimatedBytes;
+
+		public Structure(String name, long entries, long estimatedBytes) {
+			this.name = name;
+			this.entries = entries;
+			this.estimatedBytes = estimatedBytes;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getEntries() {
+			return entries;
+		}
+
+		public long getEstimatedBytes() {
+			return estimatedBytes;
+		}
+
+		@Override
+		public String toString() {
+			return "Structure [name=" + name + ", entries=" + entries
+					+ ", estimatedBytes=" + estimatedBytes + "]";
+		}
+	}
+}
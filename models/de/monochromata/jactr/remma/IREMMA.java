@@ -1,5 +1,7 @@
 package de.monochromata.jactr.remma;
 
+import java.io.File;
+
 import org.jactr.core.chunktype.IChunkType;
 import org.jactr.core.module.IModule;
 
@@ -26,6 +28,12 @@ public interface IREMMA extends IModule {
 	 */
 	public double getFrequency(Fixation.Word word);
 	
+	/**
+	 * Returns -ln({@link #getFrequency(Fixation.Word)}), the frequency
+	 * term of the encoding duration, that is precomputed where possible.
+	 */
+	public double getNegativeLogFrequency(Fixation.Word word);
+	
 	/**
 	 * Returns the horizontal resolution in px per mm.
 	 */
@@ -64,6 +72,47 @@ public interface IREMMA extends IModule {
 	
 	public IChunkType getNextWordChunkType();
 	
+	/**
+	 * Returns wall-clock time, allocated bytes and element counts of the
+	 * phases of loading and initializing the module.
+	 */
+	public StartupStatistics getStartupStatistics();
+	
+	/**
+	 * Returns entry counts and estimated retained bytes of the data structures
+	 * of the module and the numbers of synthetic words and schemata created
+	 * while the model was running. The footprint is computed by traversing the
+	 * data structures and should be obtained while the model is not running
+	 * or from the model thread.
+	 */
+	public HeapFootprint getHeapFootprint();
+	
+	/**
+	 * Returns the footprint recorded when the module was initialized, to
+	 * compute the growth during a run, or null, if the module has not been
+	 * initialized yet.
+	 * 
+	 * @see HeapFootprint#toGrowthSummary(HeapFootprint)
+	 */
+	public HeapFootprint getInitialHeapFootprint();
+	
+	/**
+	 * Returns the trace of fixations, chosen words, encoding durations and
+	 * decisions, or null, if tracing is disabled.
+	 * 
+	 * @see REMMAParticipant#TRACE_BUFFER_SIZE
+	 */
+	public TraceBuffer getTraceBuffer();
+	
+	/**
+	 * Applies the differences between the given ast.json, or a fragment of it
+	 * that contains all entries for the given URI, to the loaded schemata,
+	 * words and reference potentials without a full reset.
+	 * 
+	 * @param uri null, if jsonFile is a complete ast.json
+	 */
+	public AstDelta reloadJSON(File jsonFile, String uri);
+	
 	public void addListener(IREMMAListener listener);
 	public void removeListener(IREMMAListener listener);
 	
@@ -0,0 +1,83 @@
+package de.monochromata.jactr.remma;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.jactr.core.chunk.IChunk;
+import org.jactr.core.module.declarative.IDeclarativeModule;
+
+/**
+ * Keeps the names of chunks that are known to be in declarative memory, so
+ * that repeated existence checks need not wait for the declarative module.
+ * <p>
+ * Names are recorded when a lookup has found a chunk or when a chunk has
+ * been added. Names that are not known are looked up in declarative memory.
+ * Chunks are not expected to be removed from declarative memory.
+ */
+public class KnownChunkNames {
+
+	private final Set<String> names = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * @return true, if a chunk with the given name is in the given declarative memory
+	 */
+	public boolean contains(IDeclarativeModule dm, String name)
+			throws InterruptedException, ExecutionException {
+		if(names.contains(name))
+			return true;
+		if(dm.getChunk(name).get() != null) {
+			names.add(name);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Looks up the given names that are not known yet in a single batch, i.e.
+	 * all lookups are issued before the first result is awaited.
+	 *
+	 * @return the given names of chunks that are in the given declarative memory
+	 */
+	public Set<String> getContained(IDeclarativeModule dm, Collection<String> candidates)
+			throws InterruptedException, ExecutionException {
+		Set<String> contained = new HashSet<>();
+		List<String> unknownNames = new ArrayList<>();
+		List<Future<IChunk>> lookups = new ArrayList<>();
+		for(String name: candidates) {
+			if(names.contains(name)) {
+				contained.add(name);
+			} else {
+				unknownNames.add(name);
+				lookups.add(dm.getChunk(name));
+			}
+		}
+		for(int i=0;i<lookups.size();i++) {
+			if(lookups.get(i).get() != null) {
+				names.add(unknownNames.get(i));
+				contained.add(unknownNames.get(i));
+			}
+		}
+		return contained;
+	}
+
+	/**
+	 * Records that the given chunk has been added to declarative memory.
+	 */
+	public void added(IChunk chunk) {
+		names.add(chunk.getSymbolicName());
+	}
+
+	public int size() {
+		return names.size();
+	}
+
+	public void clear() {
+		names.clear();
+	}
+}
@@ -0,0 +1,327 @@
+package de.monochromata.jactr.remma;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Stores the lexical features of schemata in columns, i.e. one column per
+ * feature name that is indexed by int row handles, instead of a hash map per
+ * schema. Equal values are shared between rows as long as a row refers to
+ * them.
+ * <p>
+ * Columns start out sparse, i.e. as a map from row to value, and become dense
+ * arrays once more than one in {@value #DENSE_FRACTION_INVERSE} rows has a
+ * value in the column, so that rare features do not cost a cell per row.
+ * <p>
+ * {@link #getRow(int)} provides a map view of the features of a row. Null
+ * values are not supported, a null cell denotes a missing feature. Rows of
+ * removed schemata are released via {@link #free(Map)} and are re-used by
+ * subsequently added rows.
+ */
+public class LexicalFeatureColumns {
+
+	private static final int DENSE_FRACTION_INVERSE = 8;
+	private static final int MIN_DENSE_VALUES = 64;
+
+	private final Map<String,Integer> columnsByName = new HashMap<>();
+	private final List<String> names = new ArrayList<>();
+	private final List<Column> columns = new ArrayList<>();
+	private final Map<Object,WeakReference<Object>> canonicalValues = new WeakHashMap<>();
+	private int rows = 0;
+	private int capacity = 1024;
+	private int[] freeRows = new int[16];
+	private int freeRowCount = 0;
+
+	/**
+	 * Stores the given features in a new row.
+	 *
+	 * @return a map view of the new row
+	 */
+	public Map<String,Object> add(Map<String,Object> features) {
+		int row;
+		if(freeRowCount > 0) {
+			row = freeRows[--freeRowCount];
+		} else {
+			if(rows == capacity) {
+				capacity *= 2;
+				for(Column column: columns) {
+					column.grow(capacity);
+				}
+			}
+			row = rows++;
+		}
+		for(Map.Entry<String,Object> feature: features.entrySet()) {
+			set(row, feature.getKey(), feature.getValue());
+		}
+		return new Row(row);
+	}
+
+	/**
+	 * @return a map view of the features in the given row
+	 */
+	public Map<String,Object> getRow(int row) {
+		if(row < 0 || row >= rows)
+			throw new IndexOutOfBoundsException("Row: "+row+", Rows: "+rows);
+		return new Row(row);
+	}
+
+	/**
+	 * Copies the features of the given map view into the view, so that it
+	 * remains usable, and releases its row for re-use. Other views of the same
+	 * row must not be used afterwards. Maps that are not views of a row are
+	 * ignored.
+	 */
+	public void free(Map<String,Object> features) {
+		if(!(features instanceof Row) || ((Row)features).detached != null)
+			return;
+		Row view = (Row)features;
+		Map<String,Object> detached = new HashMap<>(view);
+		for(Column column: columns) {
+			column.remove(view.row);
+		}
+		view.detached = detached;
+		if(freeRowCount == freeRows.length) {
+			freeRows = Arrays.copyOf(freeRows, freeRows.length*2);
+		}
+		freeRows[freeRowCount++] = view.row;
+	}
+
+	/**
+	 * @return the number of rows in use
+	 */
+	public int getRowCount() {
+		return rows-freeRowCount;
+	}
+
+	public int getColumnCount() {
+		return columns.size();
+	}
+
+	/**
+	 * @return the number of cells allocated for dense columns and of values
+	 * 	stored in sparse columns
+	 */
+	public long getCellCount() {
+		long cells = 0;
+		for(Column column: columns) {
+			cells += column.dense != null?column.dense.length:column.sparse.size();
+		}
+		return cells;
+	}
+
+	/**
+	 * @return the estimated number of bytes retained by the columns, including
+	 * 	the values
+	 * @see HeapFootprint
+	 */
+	long estimateBytes() {
+		long bytes = HeapFootprint.estimateArray(freeRows.length, 4);
+		for(Column column: columns) {
+			bytes += column.dense != null?
+					HeapFootprint.estimateArray(column.dense.length, HeapFootprint.REFERENCE_BYTES)
+					:column.sparse.size()*(HeapFootprint.HASH_ENTRY_BYTES+HeapFootprint.estimateObject(0, 4));
+		}
+		for(Object value: canonicalValues.keySet()) {
+			bytes += HeapFootprint.HASH_ENTRY_BYTES+HeapFootprint.estimateObject(1, 0)
+					+(value instanceof String?
+					HeapFootprint.estimateString((String)value):HeapFootprint.estimateObject(0, 8));
+		}
+		return bytes;
+	}
+
+	private Object set(int row, String name, Object value) {
+		Objects.requireNonNull(value, name);
+		Integer column = columnsByName.get(name);
+		if(column == null) {
+			column = columns.size();
+			columnsByName.put(name, column);
+			names.add(name);
+			columns.add(new Column());
+		}
+		return columns.get(column).set(row, canonicalize(value));
+	}
+
+	private Object canonicalize(Object value) {
+		WeakReference<Object> reference = canonicalValues.get(value);
+		Object canonicalValue = reference == null?null:reference.get();
+		if(canonicalValue == null) {
+			canonicalValues.put(value, new WeakReference<>(value));
+			canonicalValue = value;
+		}
+		return canonicalValue;
+	}
+
+	private Object get(int row, Object name) {
+		Integer column = columnsByName.get(name);
+		return column == null?null:columns.get(column).get(row);
+	}
+
+	private Object remove(int row, Object name) {
+		Integer column = columnsByName.get(name);
+		return column == null?null:columns.get(column).remove(row);
+	}
+
+	public void clear() {
+		columnsByName.clear();
+		names.clear();
+		columns.clear();
+		canonicalValues.clear();
+		rows = 0;
+		capacity = 1024;
+		freeRows = new int[16];
+		freeRowCount = 0;
+	}
+
+	/**
+	 * The values of a single feature, sparse or dense.
+	 */
+	private class Column {
+
+		private Map<Integer,Object> sparse = new HashMap<>();
+		private Object[] dense;
+		private int values = 0;
+
+		private Object get(int row) {
+			return dense != null?dense[row]:sparse.get(row);
+		}
+
+		private Object set(int row, Object value) {
+			Object oldValue;
+			if(dense != null) {
+				oldValue = dense[row];
+				dense[row] = value;
+			} else {
+				oldValue = sparse.put(row, value);
+			}
+			if(oldValue == null && ++values > MIN_DENSE_VALUES
+					&& dense == null && values*DENSE_FRACTION_INVERSE > capacity) {
+				dense = new Object[capacity];
+				for(Map.Entry<Integer,Object> entry: sparse.entrySet()) {
+					dense[entry.getKey()] = entry.getValue();
+				}
+				sparse = null;
+			}
+			return oldValue;
+		}
+
+		private Object remove(int row) {
+			Object oldValue;
+			if(dense != null) {
+				oldValue = dense[row];
+				dense[row] = null;
+			} else {
+				oldValue = sparse.remove(row);
+			}
+			if(oldValue != null)
+				values--;
+			return oldValue;
+		}
+
+		private void grow(int capacity) {
+			if(dense != null) {
+				dense = Arrays.copyOf(dense, capacity);
+			}
+		}
+	}
+
+	private class Row extends AbstractMap<String,Object> {
+
+		private final int row;
+		/**
+		 * The features of the row after it has been freed, or null
+		 */
+		private Map<String,Object> detached;
+
+		private Row(int row) {
+			this.row = row;
+		}
+
+		@Override
+		public Object get(Object key) {
+			return detached != null?detached.get(key):LexicalFeatureColumns.this.get(row, key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			return detached != null?detached.put(key, value):set(row, key, value);
+		}
+
+		@Override
+		public Object remove(Object key) {
+			return detached != null?detached.remove(key):LexicalFeatureColumns.this.remove(row, key);
+		}
+
+		@Override
+		public Set<Map.Entry<String,Object>> entrySet() {
+			if(detached != null)
+				return detached.entrySet();
+			return new AbstractSet<Map.Entry<String,Object>>() {
+
+				@Override
+				public Iterator<Map.Entry<String,Object>> iterator() {
+					return new Iterator<Map.Entry<String,Object>>() {
+
+						private int next = advance(0);
+						private int current = -1;
+
+						private int advance(int column) {
+							while(column < columns.size() && columns.get(column).get(row) == null) {
+								column++;
+							}
+							return column;
+						}
+
+						@Override
+						public boolean hasNext() {
+							return next < columns.size();
+						}
+
+						@Override
+						public Map.Entry<String,Object> next() {
+							if(!hasNext())
+								throw new NoSuchElementException();
+							current = next;
+							next = advance(next+1);
+							return new AbstractMap.SimpleImmutableEntry<String,Object>(
+									names.get(current), columns.get(current).get(row));
+						}
+
+						@Override
+						public void remove() {
+							if(current == -1)
+								throw new IllegalStateException();
+							columns.get(current).remove(row);
+							current = -1;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					int size = 0;
+					for(Column column: columns) {
+						if(column.get(row) != null)
+							size++;
+					}
+					return size;
+				}
+			};
+		}
+	}
+}
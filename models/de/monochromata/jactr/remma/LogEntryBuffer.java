@@ -0,0 +1,150 @@
+package de.monochromata.jactr.remma;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.function.Consumer;
+
+/**
+ * Log entries read from the events file ahead of the model. The buffer is
+ * refilled with a given number of fixations only once it is empty, so that
+ * entries taken from a non-empty buffer never read from the events file.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @see REMMAParticipant#READ_AHEAD_FIXATIONS
+ */
+public class LogEntryBuffer {
+
+	/**
+	 * Reads the next log entry from the events file.
+	 */
+	public interface Source {
+		/**
+		 * @return the next log entry, or null, if there are no further entries
+		 */
+		LogEntry read() throws IOException;
+	}
+
+	private final Source source;
+	private final Consumer<Fixation> fixationConsumer;
+	private final LinkedList<LogEntry> entries = new LinkedList<>();
+	private int fixations = 0;
+	private int fixationsBuffered = 0;
+	private boolean exhausted = false;
+
+	/**
+	 * @param fixationConsumer invoked for each fixation that is read ahead
+	 */
+	public LogEntryBuffer(Source source, Consumer<Fixation> fixationConsumer) {
+		this.source = source;
+		this.fixationConsumer = fixationConsumer;
+	}
+
+	/**
+	 * Sets the number of fixations that are read when the buffer is
+	 * refilled, or 0 to read entries one at a time without buffering.
+	 */
+	public void setFixations(int fixations) {
+		this.fixations = fixations;
+	}
+
+	/**
+	 * Returns the next log entry, refilling the buffer if it is empty.
+	 *
+	 * @return the next log entry, or null, if there are no further entries
+	 */
+	public LogEntry poll() throws IOException {
+		if(fixations == 0) {
+			return source.read();
+		}
+		if(entries.isEmpty()) {
+			fill();
+		}
+		LogEntry entry = entries.poll();
+		if(entry instanceof Fixation) {
+			fixationsBuffered--;
+		}
+		return entry;
+	}
+
+	private void fill() throws IOException {
+		while(fixationsBuffered < fixations && !exhausted) {
+			LogEntry entry = source.read();
+			if(entry == null) {
+				exhausted = true;
+			} else {
+				entries.add(entry);
+				if(entry instanceof Fixation) {
+					fixationsBuffered++;
+					fixationConsumer.accept((Fixation)entry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Whether the given number of merged log entries can be obtained without
+	 * reading from the events file, i.e. whether they and the entries needed
+	 * to decide on merging them are buffered.
+	 *
+	 * @param lookAhead an entry that has been taken from the buffer already
+	 * 	and precedes the buffered entries, or null
+	 * @see #isMergeable(LogEntry, LogEntry)
+	 */
+	public boolean areBuffered(LogEntry lookAhead, int count) {
+		if(fixations == 0) {
+			return false;
+		}
+		Iterator<LogEntry> iterator = entries.iterator();
+		LogEntry entry = lookAhead != null?lookAhead:(iterator.hasNext()?iterator.next():null);
+		if(entry == null) {
+			return exhausted;
+		}
+		while(true) {
+			LogEntry following;
+			do {
+				if(!iterator.hasNext()) {
+					return exhausted;
+				}
+				following = iterator.next();
+			} while(isMergeable(entry, following));
+			if(--count == 0) {
+				return true;
+			}
+			entry = following;
+		}
+	}
+
+	/**
+	 * Whether the given log entry is merged with the entry that follows it:
+	 * successive saccades are always merged, successive fixations are merged
+	 * if their foveated and parafoveated words and regression info are equal.
+	 */
+	static boolean isMergeable(LogEntry entry, LogEntry following) {
+		if(entry instanceof Saccade) {
+			return following instanceof Saccade;
+		} else if(entry instanceof Fixation && following instanceof Fixation) {
+			Fixation fixation = (Fixation)entry;
+			Fixation followingFixation = (Fixation)following;
+			return fixation.getFoveatedWord().equals(followingFixation.getFoveatedWord())
+					&& (fixation.getRegressionInfo() == null?followingFixation.getRegressionInfo() == null
+							:fixation.getRegressionInfo().equals(followingFixation.getRegressionInfo()))
+					&& fixation.getParafoveatedWords().equals(followingFixation.getParafoveatedWords());
+		}
+		return false;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Discards the buffered entries, e.g. when the events file is re-opened.
+	 */
+	public void clear() {
+		entries.clear();
+		fixationsBuffered = 0;
+		exhausted = false;
+	}
+}
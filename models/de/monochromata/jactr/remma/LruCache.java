@@ -0,0 +1,29 @@
+package de.monochromata.jactr.remma;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map that retains at most a given number of entries and evicts the
+ * least-recently accessed entry when that number is exceeded.
+ */
+public class LruCache<K,V> extends LinkedHashMap<K,V> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int capacity;
+
+	public LruCache(int capacity) {
+		super(16, 0.75f, true);
+		this.capacity = capacity;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<K,V> eldest) {
+		return size() > capacity;
+	}
+}
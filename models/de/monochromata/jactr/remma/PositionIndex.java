@@ -0,0 +1,471 @@
+package de.monochromata.jactr.remma;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import de.monochromata.jactr.tls.SpatialInfo;
+
+/**
+ * Indexes objects by the URI, line and column of their position.
+ * <p>
+ * Objects are collected while the AST is loaded and are then frozen into
+ * per-URI arrays sorted by (line, column) packed into a long, that are
+ * searched binarily. Objects added after freezing, e.g. words created at
+ * runtime, are kept in a small overflow map. If multiple objects are added
+ * at the same position, lookups return the one that has been added first,
+ * unless a predicate selects among them.
+ * <p>
+ * Besides exact lookups, the index answers which object covers a position,
+ * i.e. which object starts at or before the column on the same line and
+ * extends beyond it, according to its length.
+ * <p>
+ * Before it is frozen for the first time, the index must only be accessed
+ * by the thread that loads the objects. Afterwards, the frozen arrays are
+ * never modified but replaced, and the overflow map is concurrent, so any
+ * thread can read the index while a single thread modifies it. The frozen
+ * arrays and the overflow map are published together in a single volatile
+ * field, so readers always see an overflow map that matches the frozen
+ * arrays and never miss objects.
+ */
+public class PositionIndex<T> {
+
+	private final Function<T,SpatialInfo> spatialInfo;
+	private Map<String,List<T>> staged = new HashMap<>();
+	/**
+	 * Null, until the index is frozen for the first time
+	 */
+	private volatile Frozen frozen = null;
+
+	public PositionIndex(Function<T,SpatialInfo> spatialInfo) {
+		this.spatialInfo = spatialInfo;
+	}
+
+	static long toPosition(int line, int column) {
+		return ((long)line << 32) | (column & 0xffffffffL);
+	}
+
+	public void add(T object) {
+		SpatialInfo spatial = spatialInfo.apply(object);
+		Frozen frozen = this.frozen;
+		if(frozen == null) {
+			staged.computeIfAbsent(spatial.getUri(), uri -> new ArrayList<>()).add(object);
+		} else {
+			frozen.overflow.computeIfAbsent(spatial.getUri(), uri -> new ConcurrentHashMap<>())
+				.computeIfAbsent(toPosition(spatial.getLine(), spatial.getColumn()), position -> new CopyOnWriteArrayList<>())
+				.add(object);
+		}
+	}
+
+	/**
+	 * @return the first object added at the given position, or null, if there is no such object
+	 */
+	public T get(String uri, int line, int column) {
+		return find(uri, line, column, object -> true, object -> false);
+	}
+
+	/**
+	 * @return the first object added at the given position that matches the
+	 * 	given filter, or null, if there is no such object
+	 */
+	public T get(String uri, int line, int column, Predicate<? super T> filter) {
+		return find(uri, line, column, filter, object -> false);
+	}
+
+	/**
+	 * Looks up all objects at the given position at once.
+	 *
+	 * @return the first object added at the given position that matches the
+	 * 	given predicate, or, if there is no such object, the first object
+	 * 	at the given position, or null, if there is no object at all
+	 */
+	public T getPreferred(String uri, int line, int column, Predicate<? super T> preferred) {
+		return find(uri, line, column, preferred, object -> true);
+	}
+
+	private T find(String uri, int line, int column, Predicate<? super T> preferred,
+			Predicate<? super T> acceptable) {
+		T fallback = null;
+		Frozen frozen = this.frozen;
+		if(frozen == null) {
+			// Only used while loading
+			List<T> objects = staged.get(uri);
+			if(objects != null) {
+				for(T object: objects) {
+					SpatialInfo spatial = spatialInfo.apply(object);
+					if(spatial.getLine() == line && spatial.getColumn() == column) {
+						if(preferred.test(object))
+							return object;
+						if(fallback == null && acceptable.test(object))
+							fallback = object;
+					}
+				}
+			}
+			return fallback;
+		}
+		long position = toPosition(line, column);
+		Positions positions = frozen.positions.get(uri);
+		if(positions != null) {
+			for(int i=positions.lowerBound(position);i<positions.positions.length && positions.positions[i] == position;i++) {
+				T object = positions.getObject(i);
+				if(preferred.test(object))
+					return object;
+				if(fallback == null && acceptable.test(object))
+					fallback = object;
+			}
+		}
+		Map<Long,List<T>> overflowAtUri = frozen.overflow.get(uri);
+		List<T> objects = overflowAtUri == null?null:overflowAtUri.get(position);
+		if(objects != null) {
+			for(T object: objects) {
+				if(preferred.test(object))
+					return object;
+				if(fallback == null && acceptable.test(object))
+					fallback = object;
+			}
+		}
+		return fallback;
+	}
+
+	/**
+	 * @return the narrowest object whose span on the given line contains the
+	 * 	given column, or null, if there is no such object
+	 */
+	public T getCovering(String uri, int line, int column, Predicate<? super T> filter) {
+		T covering = null;
+		int coveringLength = Integer.MAX_VALUE;
+		Frozen frozen = this.frozen;
+		if(frozen == null) {
+			List<T> objects = staged.get(uri);
+			if(objects != null) {
+				for(T object: objects) {
+					SpatialInfo spatial = spatialInfo.apply(object);
+					int length = getLength(spatial);
+					if(covers(spatial, length, line, column) && length < coveringLength
+							&& filter.test(object)) {
+						covering = object;
+						coveringLength = length;
+					}
+				}
+			}
+			return covering;
+		}
+		Positions positions = frozen.positions.get(uri);
+		if(positions != null) {
+			int index = positions.getCovering(toPosition(line, column), filter);
+			if(index != -1) {
+				covering = positions.getObject(index);
+				coveringLength = (int)(positions.ends[index]-positions.positions[index]);
+			}
+		}
+		Map<Long,List<T>> overflowAtUri = frozen.overflow.get(uri);
+		if(overflowAtUri != null) {
+			for(List<T> objects: overflowAtUri.values()) {
+				for(T object: objects) {
+					SpatialInfo spatial = spatialInfo.apply(object);
+					int length = getLength(spatial);
+					if(covers(spatial, length, line, column) && length < coveringLength
+							&& filter.test(object)) {
+						covering = object;
+						coveringLength = length;
+					}
+				}
+			}
+		}
+		return covering;
+	}
+
+	/**
+	 * @return the length of the given span, at least 1
+	 */
+	private static int getLength(SpatialInfo spatial) {
+		return Math.max(1, spatial.getLength());
+	}
+
+	private static boolean covers(SpatialInfo spatial, int length, int line, int column) {
+		return spatial.getLine() == line
+				&& spatial.getColumn() <= column
+				&& column < spatial.getColumn()+length;
+	}
+
+	/**
+	 * Removes all objects at the given URI and line that match the given predicate.
+	 */
+	public void remove(String uri, int line, Predicate<? super T> predicate) {
+		removeAll(uri, object -> spatialInfo.apply(object).getLine() == line && predicate.test(object));
+	}
+
+	/**
+	 * Removes all objects at the given URI that match the given predicate. Once
+	 * the index is frozen, the objects at the URI are copied, so removals
+	 * should be batched per URI.
+	 */
+	public void removeAll(String uri, Predicate<? super T> predicate) {
+		Frozen frozen = this.frozen;
+		if(frozen == null) {
+			List<T> objects = staged.get(uri);
+			if(objects != null) {
+				objects.removeIf(predicate);
+			}
+		} else {
+			Positions positions = frozen.positions.get(uri);
+			if(positions != null) {
+				Positions remaining = positions.without(predicate);
+				if(remaining != positions) {
+					// Copy on write, to keep the frozen arrays immutable
+					Map<String,Positions> newPositions = new HashMap<>(frozen.positions);
+					newPositions.put(uri, remaining);
+					this.frozen = new Frozen(Collections.unmodifiableMap(newPositions), frozen.overflow);
+				}
+			}
+			Map<Long,List<T>> overflowAtUri = frozen.overflow.get(uri);
+			if(overflowAtUri != null) {
+				for(List<T> objects: overflowAtUri.values()) {
+					objects.removeIf(predicate);
+				}
+				overflowAtUri.values().removeIf(List::isEmpty);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the objects added so far into arrays. Objects that are added
+	 * afterwards are kept in an overflow map. Only the arrays of URIs with
+	 * objects in the overflow map are re-built when the index is frozen again.
+	 */
+	public void freeze() {
+		Frozen frozen = this.frozen;
+		Map<String,Positions> newPositions = new HashMap<>();
+		if(frozen != null) {
+			newPositions.putAll(frozen.positions);
+			// Re-freeze URIs with objects that have been added since the last freeze
+			for(Map.Entry<String,Map<Long,List<T>>> entry: frozen.overflow.entrySet()) {
+				List<T> objects = staged.computeIfAbsent(entry.getKey(), uri -> new ArrayList<>());
+				Positions positions = frozen.positions.get(entry.getKey());
+				if(positions != null) {
+					positions.addTo(objects);
+				}
+				for(List<T> objectsAtPosition: entry.getValue().values()) {
+					objects.addAll(objectsAtPosition);
+				}
+			}
+		}
+		for(Map.Entry<String,List<T>> entry: staged.entrySet()) {
+			if(entry.getValue().isEmpty()) {
+				newPositions.remove(entry.getKey());
+			} else {
+				newPositions.put(entry.getKey(), new Positions(entry.getValue()));
+			}
+		}
+		this.frozen = new Frozen(Collections.unmodifiableMap(newPositions), new ConcurrentHashMap<>());
+		staged = new HashMap<>();
+	}
+
+	/**
+	 * @return the number of indexed objects
+	 */
+	public int size() {
+		int size = 0;
+		for(List<T> objects: staged.values()) {
+			size += objects.size();
+		}
+		Frozen frozen = this.frozen;
+		if(frozen != null) {
+			for(Positions positions: frozen.positions.values()) {
+				size += positions.size();
+			}
+			for(Map<Long,List<T>> objectsAtUri: frozen.overflow.values()) {
+				for(List<T> objects: objectsAtUri.values()) {
+					size += objects.size();
+				}
+			}
+		}
+		return size;
+	}
+
+	public boolean isFrozen() {
+		return frozen != null;
+	}
+
+	/**
+	 * @return the estimated number of bytes retained by the index itself,
+	 * 	excluding the indexed objects
+	 * @see HeapFootprint
+	 */
+	long estimateBytes() {
+		long bytes = 0;
+		for(List<T> objects: staged.values()) {
+			bytes += HeapFootprint.HASH_ENTRY_BYTES+HeapFootprint.estimateArray(objects.size(), HeapFootprint.REFERENCE_BYTES);
+		}
+		Frozen frozen = this.frozen;
+		if(frozen != null) {
+			for(Positions positions: frozen.positions.values()) {
+				bytes += HeapFootprint.HASH_ENTRY_BYTES+HeapFootprint.estimateObject(4, 0)
+						+3*HeapFootprint.estimateArray(positions.size(), 8)
+						+HeapFootprint.estimateArray(positions.size(), HeapFootprint.REFERENCE_BYTES);
+			}
+			for(Map<Long,List<T>> objectsAtUri: frozen.overflow.values()) {
+				for(List<T> objects: objectsAtUri.values()) {
+					bytes += HeapFootprint.HASH_ENTRY_BYTES+HeapFootprint.estimateObject(1, 8)
+							+HeapFootprint.estimateObject(2, 0)
+							+HeapFootprint.estimateArray(objects.size(), HeapFootprint.REFERENCE_BYTES);
+				}
+			}
+		}
+		return bytes;
+	}
+
+	public void clear() {
+		staged = new HashMap<>();
+		frozen = null;
+	}
+
+	/**
+	 * The frozen arrays of all URIs and the overflow map for objects that
+	 * have been added since they were frozen.
+	 */
+	private class Frozen {
+
+		private final Map<String,Positions> positions;
+		private final Map<String,Map<Long,List<T>>> overflow;
+
+		private Frozen(Map<String,Positions> positions, Map<String,Map<Long,List<T>>> overflow) {
+			this.positions = positions;
+			this.overflow = overflow;
+		}
+	}
+
+	/**
+	 * The objects at a single URI, sorted by position.
+	 */
+	private class Positions {
+
+		private final long[] positions;
+		private final Object[] objects;
+		/**
+		 * The position after the last column of each object
+		 */
+		private final long[] ends;
+		/**
+		 * The maximum of ends[0..i], to stop searching for covering objects early
+		 */
+		private final long[] maxEnds;
+
+		private Positions(long[] positions, Object[] objects, long[] ends) {
+			this.positions = positions;
+			this.objects = objects;
+			this.ends = ends;
+			this.maxEnds = new long[positions.length];
+			for(int i=0;i<positions.length;i++) {
+				maxEnds[i] = i == 0?ends[i]:Math.max(ends[i], maxEnds[i-1]);
+			}
+		}
+
+		private Positions(List<T> unsorted) {
+			int size = unsorted.size();
+			long[] unsortedPositions = new long[size];
+			Integer[] order = new Integer[size];
+			for(int i=0;i<size;i++) {
+				SpatialInfo spatial = spatialInfo.apply(unsorted.get(i));
+				unsortedPositions[i] = toPosition(spatial.getLine(), spatial.getColumn());
+				order[i] = i;
+			}
+			// Stable, so that the first object added at a position is found first
+			Arrays.sort(order, (i1,i2) -> Long.compare(unsortedPositions[i1], unsortedPositions[i2]));
+			positions = new long[size];
+			objects = new Object[size];
+			ends = new long[size];
+			maxEnds = new long[size];
+			for(int i=0;i<size;i++) {
+				positions[i] = unsortedPositions[order[i]];
+				objects[i] = unsorted.get(order[i]);
+				ends[i] = positions[i]+getLength(spatialInfo.apply(unsorted.get(order[i])));
+				maxEnds[i] = i == 0?ends[i]:Math.max(ends[i], maxEnds[i-1]);
+			}
+		}
+
+		/**
+		 * @return the index of the first position that is not smaller than the given position
+		 */
+		private int lowerBound(long position) {
+			int from = 0, to = positions.length;
+			while(from < to) {
+				int middle = (from+to) >>> 1;
+				if(positions[middle] < position)
+					from = middle+1;
+				else
+					to = middle;
+			}
+			return from;
+		}
+
+		/**
+		 * @return the index of the narrowest object that covers the given
+		 * 	position, or -1, if there is no such object
+		 */
+		private int getCovering(long position, Predicate<? super T> filter) {
+			int covering = -1;
+			long coveringLength = Long.MAX_VALUE;
+			// Walk back from the last object starting at or before the position
+			// until no earlier object can extend beyond it.
+			for(int i=lowerBound(position+1)-1;i>=0 && maxEnds[i] > position;i--) {
+				if(ends[i] > position
+						&& ends[i]-positions[i] < coveringLength
+						&& filter.test(getObject(i))) {
+					covering = i;
+					coveringLength = ends[i]-positions[i];
+				}
+			}
+			return covering;
+		}
+
+		@SuppressWarnings("unchecked")
+		private T getObject(int index) {
+			return (T)objects[index];
+		}
+
+		/**
+		 * @return positions without the objects that match the given predicate,
+		 * 	or this object, if there are no such objects
+		 */
+		@SuppressWarnings("unchecked")
+		private Positions without(Predicate<? super T> predicate) {
+			int[] remaining = new int[objects.length];
+			int size = 0;
+			for(int i=0;i<objects.length;i++) {
+				if(!predicate.test((T)objects[i]))
+					remaining[size++] = i;
+			}
+			if(size == objects.length)
+				return this;
+			// The remaining objects are still sorted
+			long[] newPositions = new long[size];
+			Object[] newObjects = new Object[size];
+			long[] newEnds = new long[size];
+			for(int i=0;i<size;i++) {
+				newPositions[i] = positions[remaining[i]];
+				newObjects[i] = objects[remaining[i]];
+				newEnds[i] = ends[remaining[i]];
+			}
+			return new Positions(newPositions, newObjects, newEnds);
+		}
+
+		private int size() {
+			return objects.length;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void addTo(List<T> target) {
+			for(Object object: objects) {
+				target.add((T)object);
+			}
+		}
+	}
+}
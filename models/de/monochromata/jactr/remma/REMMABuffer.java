@@ -15,6 +15,8 @@ import de.monochromata.jactr.twm.WordActivation;
 
 public class REMMABuffer extends DefaultDelegatedRequestableBuffer6 {
 	
+	private REMMARequestDelegate requestDelegate;
+	
 	public REMMABuffer(REMMAModule module) {
 		super(IREMMA.BUFFER_NAME, module);
 	}
@@ -37,8 +39,16 @@ public class REMMABuffer extends DefaultDelegatedRequestableBuffer6 {
 	@Override
 	protected void grabReferences() {
 		super.grabReferences();
-		addRequestDelegate(
-			new REMMARequestDelegate((REMMAModule)getModule(), this));
+		requestDelegate = new REMMARequestDelegate((REMMAModule)getModule(), this);
+		addRequestDelegate(requestDelegate);
+	}
+	
+	/**
+	 * @return the delegate that handles requests, or null, if references
+	 * 	have not been grabbed yet
+	 */
+	REMMARequestDelegate getRequestDelegate() {
+		return requestDelegate;
 	}
 
 }
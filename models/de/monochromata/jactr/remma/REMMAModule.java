@@ -15,16 +15,16 @@ import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.commons.logging.Log;
@@ -112,21 +112,117 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	private String featureThatMarksMethodSchemata;
 	private long nextUniqueFeatureId = 0;
 	
-	private Map<String,Map<Integer,List<Word>>> wordsByUriAndLine = new HashMap<>();
-	private Map<String,Word> words = new HashMap<>();
+	/**
+	 * Words and reference potentials, so both can be looked up in a single probe
+	 */
+	private PositionIndex<Word> lexicalEntriesByPosition = new PositionIndex<>(Word::getSpatial);
+	private TieredMap<String,Word> words = new TieredMap<>();
+	private AstIndex astIndex;
+	private Map<Integer,Word> decodedWords;
+	/**
+	 * False, if ast.json is loaded via {@link #astIndex}, because reloading is
+	 * not supported then and {@link #loadedEntries} need not be retained.
+	 */
+	private boolean reloadable = true;
 	
-	private Map<String,Map<Integer,List<ReferencePotential>>> referencePotentialsByUriAndLine = new HashMap<>();
+	private boolean resolveByColumnSpan;
 	
-	private Map<String,ConceptualSchema> conceptualSchemataByName = new HashMap<>();
+	private TieredMap<String,ConceptualSchema> conceptualSchemataByName = new TieredMap<>();
 	private LinkedList<ConceptualSchema> conceptualSchemata = new LinkedList<>();
-	private Map<String,List<String>> lexicalizedConceptualSchemataByWord = new HashMap<>();
+	private final SchemaSymbolTable schemaSymbols = new SchemaSymbolTable();
+	/**
+	 * If true, conceptual features are kept in {@link #schemaSymbols} only and
+	 * lexical features in {@link #lexicalFeatureColumns}, schemata refer to
+	 * views of them.
+	 */
+	private boolean compactSchemaStore = REMMAParticipant.DEFAULT_COMPACT_SCHEMA_STORE;
+	private final LexicalFeatureColumns lexicalFeatureColumns = new LexicalFeatureColumns();
+	/**
+	 * The views of rows in {@link #lexicalFeatureColumns} by the symbol of their
+	 * schema in {@link #schemaSymbols}, to free them when schemata are replaced
+	 */
+	private final ArrayList<Map<String,Object>> lexicalFeatureRowsBySymbol = new ArrayList<>();
+	private Map<String,AstDelta.Entry> loadedEntries = new HashMap<>();
+	private final TWMRegistrationBatch twmRegistrations = new TWMRegistrationBatch();
+	private final KnownChunkNames chunksInDM = new KnownChunkNames();
+	/**
+	 * Non-null while references are checked during loading
+	 */
+	private ReferenceChecker loadingReferenceChecker;
+	private Set<String> retiredReferencePotentialIds = new HashSet<>();
+	/**
+	 * The IDs of the reference potentials that refer to a schema or reference
+	 * potential, by the ID of the latter, and vice versa
+	 */
+	private final Map<String,Set<String>> referencePotentialIdsByReferencedId = new HashMap<>();
+	private final Map<String,String[]> referencedIdsByReferencePotentialId = new HashMap<>();
+	/**
+	 * The IDs of words and reference potentials to be removed from
+	 * {@link #lexicalEntriesByPosition}, by URI
+	 * 
+	 * @see #flushLexicalEntryRemovals()
+	 */
+	private final Map<String,Set<String>> removedWordIdsByUri = new HashMap<>(),
+										  removedReferencePotentialIdsByUri = new HashMap<>();
+	private boolean initialized = false;
+	/**
+	 * Synthetic words and schemata created after initialization
+	 */
+	private final AtomicLong syntheticWordsAtRuntime = new AtomicLong(),
+							 syntheticSchemataAtRuntime = new AtomicLong();
+	private volatile HeapFootprint initialHeapFootprint;
+	/**
+	 * Incremented whenever words and reference potentials are replaced or
+	 * discarded, to invalidate caches of chunks created from them
+	 */
+	private volatile long lexicalEntryGeneration = 0;
+	private final SchemaNameIndex lexicalizedConceptualSchemataByWord = new SchemaNameIndex();
+	/**
+	 * Words materialized before the model started that have not been encoded
+	 * yet, and the unique features of synthetic schemata that have not been
+	 * added to declarative memory yet.
+	 */
+	private final Set<String> materializedWordIds = new HashSet<>();
+	private final Map<String,ConceptualSchema> syntheticSchemaFeaturesNotInDM = new HashMap<>();
 	
 	private BufferedReader eventsReader;
 	private REMMABuffer remmaBuffer;
+	private final StartupStatistics startupStatistics = new StartupStatistics();
 	
 	private LogEntry lookAhead;
+	/**
+	 * Null, if chunks are not prepared for upcoming fixations
+	 * @see REMMAParticipant#PREMATERIALIZED_FIXATIONS
+	 */
+	private ChunkPrematerializer chunkPrematerializer;
+	/**
+	 * Null, if tracing is disabled
+	 * @see REMMAParticipant#TRACE_BUFFER_SIZE
+	 */
+	private TraceBuffer traceBuffer;
+	/**
+	 * Log entries read from the events file but not yet returned by
+	 * {@link #loadNextLogEntry0()}
+	 */
+	private final LogEntryBuffer entriesAhead = new LogEntryBuffer(this::readLogEntry, this::prepareChunks);
+	private double parafovealRadiusDegrees, fovealRadiusDegrees;
+	private int gazeGridCellSizePx;
+	private double characterWidthPx;
+	private Map<String,GazeGridIndex> gazeGridsByPage = new HashMap<>();
 	private IChunkType nextWordChunkType;
-	private double encodingFactor, encodingExponentFactor, defaultWordFrequency,
+	/**
+	 * Null, if all words have the default frequency
+	 * @see REMMAParticipant#PATH_TO_FREQUENCIES
+	 */
+	private FrequencyLexicon frequencyLexicon;
+	/**
+	 * Null, if frequencies are not estimated from encoded words
+	 * @see REMMAParticipant#ADAPTIVE_FREQUENCIES
+	 */
+	private CountMinSketch encounteredWords;
+	private double frequencyPriorWeight;
+	private boolean keepFrequenciesOnReset;
+	private double encodingFactor, encodingExponentFactor, defaultWordFrequency, negativeLogDefaultWordFrequency,
 			horizontalResolutionPxPerMM, verticalResolutionPxPerMM, distanceToScreenMM;
 	private double cancellableProgrammingDurationS,
 				   nonCancellableProgrammingDurationS/*,
@@ -198,17 +294,50 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 		model.addListener(startUp, ExecutorServices.INLINE_EXECUTOR);
 		
 		try {
+			StartupStatistics.Measurement measurement = startupStatistics.begin("createEventsReader");
 			eventsReader = createEventsReader();
+			measurement.finish(0);
 			
 			featureThatMarksMethodSchemata = getParameter(FEATURE_THAT_MARKS_METHOD_SCHEMATA);
+			resolveByColumnSpan = Boolean.parseBoolean(getParameter(RESOLVE_BY_COLUMN_SPAN));
+			compactSchemaStore = Boolean.parseBoolean(getParameter(COMPACT_SCHEMA_STORE));
 			encodingFactor = Double.parseDouble(getParameter(ENCODING_FACTOR));
 			encodingExponentFactor = Double.parseDouble(getParameter(ENCODING_EXPONENT_FACTOR));
 			defaultWordFrequency = Double.parseDouble(getParameter(DEFAULT_FREQUENCY));
+			negativeLogDefaultWordFrequency = -Math.log(defaultWordFrequency);
+			String pathToFrequencies = getParameter(PATH_TO_FREQUENCIES);
+			if(!pathToFrequencies.isEmpty()) {
+				measurement = startupStatistics.begin("loadFrequencies");
+				frequencyLexicon = FrequencyLexicon.load(new File(pathToFrequencies));
+				measurement.finish(frequencyLexicon.size());
+			}
+			if(Boolean.parseBoolean(getParameter(ADAPTIVE_FREQUENCIES))) {
+				encounteredWords = new CountMinSketch(Integer.parseInt(getParameter(FREQUENCY_SKETCH_WIDTH)));
+				frequencyPriorWeight = Double.parseDouble(getParameter(FREQUENCY_PRIOR_WEIGHT));
+				keepFrequenciesOnReset = Boolean.parseBoolean(getParameter(KEEP_FREQUENCIES_ON_RESET));
+			}
 			horizontalResolutionPxPerMM = Double.parseDouble(getParameter(SCREEN_WIDTH_PX))
 					/ Double.parseDouble(getParameter(SCREEN_WIDTH_MM));
 			verticalResolutionPxPerMM = Double.parseDouble(getParameter(SCREEN_HEIGHT_PX))
 					/ Double.parseDouble(getParameter(SCREEN_HEIGHT_MM));
 			distanceToScreenMM = Double.parseDouble(getParameter(DISTANCE_TO_SCREEN_MM));
+			parafovealRadiusDegrees = Double.parseDouble(getParameter(PARAFOVEAL_RADIUS_DEGREES));
+			fovealRadiusDegrees = Double.parseDouble(getParameter(FOVEAL_RADIUS_DEGREES));
+			gazeGridCellSizePx = Integer.parseInt(getParameter(GAZE_GRID_CELL_SIZE_PX));
+			characterWidthPx = Double.parseDouble(getParameter(CHARACTER_WIDTH_PX));
+			int prematerializedFixations = Integer.parseInt(getParameter(PREMATERIALIZED_FIXATIONS));
+			if(prematerializedFixations > 0) {
+				chunkPrematerializer = new ChunkPrematerializer(this, prematerializedFixations);
+			}
+			int readAheadFixations = Integer.parseInt(getParameter(READ_AHEAD_FIXATIONS));
+			if(chunkPrematerializer != null) {
+				readAheadFixations = Math.max(readAheadFixations, chunkPrematerializer.getMaxFixations());
+			}
+			entriesAhead.setFixations(readAheadFixations);
+			int traceBufferSize = Integer.parseInt(getParameter(TRACE_BUFFER_SIZE));
+			if(traceBufferSize > 0) {
+				traceBuffer = new TraceBuffer(traceBufferSize);
+			}
 			
 			cancellableProgrammingDurationS = Double.parseDouble(getParameter(CANCELLABLE_PROGRAMMING_DURATION_S));
 			nonCancellableProgrammingDurationS = Double.parseDouble(getParameter(NON_CANCELLABLE_PROGRAMMING_DURATION_S));
@@ -216,8 +345,14 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 			executionDurationPerDegreeS = Double.parseDouble(getParameter(EXECUTION_DURATION_PER_DEGREE_S));*/
 			
 			// TODO: How to correctly signal initialisation errors?
-			loadSchemaAndWordsJSON();
-			checkReferences();
+			boolean checkReferencesWhileLoading = Boolean.parseBoolean(getParameter(CHECK_REFERENCES_WHILE_LOADING));
+			if(checkReferencesWhileLoading) {
+				loadingReferenceChecker = new ReferenceChecker(schemaSymbols);
+			}
+			measurement = startupStatistics.begin("loadSchemaAndWordsJSON");
+			measurement.finish(loadSchemaAndWordsJSON());
+			measurement = startupStatistics.begin("checkReferences");
+			measurement.finish(checkReferencesWhileLoading?finishLoadingReferenceCheck():checkReferences());
 			// TODO: Split camelCase into constituent concepts and add them besides the camelCase concepts
 		} catch (IOException e) {
 			LOGGER.error("Failed to files: "+e.getMessage(), e);
@@ -228,16 +363,76 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 		return new BufferedReader(new FileReader(getParameter(PATH_TO_EVENTS)));
 	}
 
-	private void loadSchemaAndWordsJSON() {
+	/**
+	 * @return the number of loaded schemata, words and reference potentials
+	 */
+	private int loadSchemaAndWordsJSON() {
+		String pathToJSON = getParameter(PATH_TO_JSON);
+		int loaded;
+		if(Boolean.parseBoolean(getParameter(USE_AST_INDEX))) {
+			loaded = openAstIndex(new File(pathToJSON));
+		} else {
+			loaded = loadJSON0(readJSONArray(new File(pathToJSON)));
+		}
+		flushTWMRegistrations();
+		return loaded;
+	}
+	
+	/**
+	 * Registers the reference potentials that have been loaded since the
+	 * last invocation with TWM.
+	 * 
+	 * @see TWMRegistrationBatch
+	 */
+	private void flushTWMRegistrations() {
+		if(!twmRegistrations.isEmpty()) {
+			twmRegistrations.flush((ITWM)getModel().getModule(ITWM.class));
+		}
+	}
+	
+	/**
+	 * Loads schemata and reference potentials from the memory-mapped ast.json
+	 * one at a time, while words are only decoded when they are looked up.
+	 * 
+	 * @return the number of loaded schemata and reference potentials and of indexed words
+	 * @see AstIndex
+	 */
+	private int openAstIndex(File jsonFile) {
+		int[] loaded = new int[1];
+		reloadable = false;
+		try {
+			astIndex = AstIndex.open(jsonFile, obj -> {
+				loadJSON1(obj);
+				loaded[0]++;
+			});
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to open index of "+jsonFile+": "+e.getMessage(), e);
+		}
+		decodedWords = new LruCache<>(Integer.parseInt(getParameter(DECODED_WORD_CACHE_SIZE)));
+		return loaded[0]+astIndex.getNumberOfWords();
+	}
+	
+	private void closeAstIndex() {
+		if(astIndex != null) {
+			try {
+				astIndex.close();
+			} catch (IOException e) {
+				LOGGER.error("Failed to close index of JSON file", e);
+			}
+			astIndex = null;
+			decodedWords = null;
+		}
+		reloadable = true;
+	}
+	
+	private JSONArray readJSONArray(File jsonFile) {
 		FileReader reader = null;
 		try {
-			String pathToJSON = getParameter(PATH_TO_JSON);
-			File jsonFile = new File(pathToJSON);
 			reader = new FileReader(jsonFile);
 			JSONTokener tokener = new JSONTokener(reader);
 			Object nextValue = tokener.nextValue();
 			if(nextValue instanceof JSONArray)
-				loadJSON0((JSONArray)nextValue);
+				return (JSONArray)nextValue;
 			else
 				throw new RuntimeException("No outermost JSONArray"); 
 		} catch (FileNotFoundException e) {
@@ -257,13 +452,15 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	 * Loads the elements of the outermost JSON array
 	 * 
 	 * @param array
+	 * @return the number of loaded elements
 	 */
-	private void loadJSON0(JSONArray array) {
+	private int loadJSON0(JSONArray array) {
 		int length = array.length();
 		// TODO: Not very memory-efficient to parse the entire array at once
 		for(int i=0;i<length;i++) {
 			loadJSON1(array.getJSONObject(i));
 		}
+		return length;
 	}
 	
 	/**
@@ -274,6 +471,10 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	 */
 	private void loadJSON1(JSONObject obj) {
 		String ct = obj.getString(JSONKey.CT.name());
+		if(reloadable) {
+			loadedEntries.merge(obj.getString(JSONKey.ID.name()), AstDelta.createEntry(obj, ct),
+					AstDelta.Entry::merge);
+		}
 		switch(ct) {
 		case "Token":
 		case "Type": loadLexicalizedConceptualSchema(obj, ct); break;
@@ -283,6 +484,178 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 		}
 	}
 	
+	/**
+	 * Loads the differences between the given ast.json and the loaded state.
+	 * Only added, replaced and removed schemata, words and reference potentials
+	 * are processed, references are checked and featuresOf: imports are
+	 * re-resolved only for them and for the schemata that refer to them.
+	 * <p>
+	 * Note that chunks that have already been added to declarative memory for
+	 * replaced or removed elements remain in declarative memory and that removed
+	 * reference potentials remain known to TWM, because TWM does not permit
+	 * removal of reference potentials. They are not encoded by REMMA anymore,
+	 * though.
+	 * 
+	 * @param jsonFile A complete ast.json, if uri is null, or a fragment of ast.json
+	 * 	that contains all schemata, words and reference potentials located in the
+	 * 	given uri.
+	 * @param uri null, or the URI that the given fragment replaces
+	 * @return the delta that has been applied
+	 */
+	public AstDelta reloadJSON(File jsonFile, String uri) {
+		if(astIndex != null) {
+			throw new IllegalStateException("Reloading is not supported when "+USE_AST_INDEX+" is set");
+		}
+		AstDelta delta = AstDelta.compute(loadedEntries, readJSONArray(jsonFile), uri);
+		if(!delta.isEmpty()) {
+			applyDelta(delta);
+			lexicalEntryGeneration++;
+		}
+		LOGGER.info("Reloaded "+jsonFile+": "+delta);
+		return delta;
+	}
+	
+	private void applyDelta(AstDelta delta) {
+		ITWM twm = (ITWM)getModel().getModule(ITWM.class);
+		
+		// Remove replaced and removed elements
+		Set<String> changedSchemaIds = new HashSet<>();
+		Set<String> removedIds = new HashSet<>(delta.getRemovedIds());
+		for(JSONObject obj: delta.getReplacedEntries()) {
+			removedIds.add(obj.getString(JSONKey.ID.name()));
+		}
+		for(String id: removedIds) {
+			AstDelta.Entry entry = loadedEntries.remove(id);
+			switch(entry.getConceptualType()) {
+			case "Token":
+			case "Type":
+				removeLexicalizedConceptualSchema(id, entry);
+				changedSchemaIds.add(id);
+				break;
+			case "ReferencePotential":
+				unindexReferencePotential(id, entry.getUri());
+				retireReferencePotential(id);
+				break;
+			case "Word": removeWord(id); break;
+			default: throw new IllegalStateException("Unknown conceptual type: "+entry.getConceptualType());
+			}
+		}
+		flushLexicalEntryRemovals();
+		if(!changedSchemaIds.isEmpty()) {
+			conceptualSchemata.removeIf(schema -> changedSchemaIds.contains(schema.getId()));
+		}
+		
+		// Load added and replaced elements
+		List<ReferencePotential> loadedReferencePotentials = new ArrayList<>();
+		List<Word> loadedWords = new ArrayList<>();
+		Set<String> loadedIds = new LinkedHashSet<>();
+		for(JSONObject obj: delta.getEntriesToLoad()) {
+			loadedIds.add(obj.getString(JSONKey.ID.name()));
+			loadJSON1(obj);
+		}
+		flushTWMRegistrations();
+		for(String id: loadedIds) {
+			switch(loadedEntries.get(id).getConceptualType()) {
+			case "Token":
+			case "Type":
+				changedSchemaIds.add(id);
+				String refPotId = getReferencePotentialIdForLexicalizedConceptualSchema(id);
+				if(!retiredReferencePotentialIds.contains(refPotId) && twm.hasReferencePotential(refPotId))
+					loadedReferencePotentials.add(twm.getReferencePotential(refPotId));
+				break;
+			case "ReferencePotential": loadedReferencePotentials.add(twm.getReferencePotential(id)); break;
+			case "Word": loadedWords.add(words.get(id)); break;
+			}
+		}
+		
+		// Check the changed part of the graph, based on the declared features
+		// because resolved features might contain features of replaced schemata
+		Set<Integer> changedSymbols = new HashSet<>();
+		for(String id: changedSchemaIds) {
+			changedSymbols.add(schemaSymbols.intern(id));
+		}
+		Set<Integer> affectedSymbols = schemaSymbols.getReferringSymbols(changedSymbols);
+		List<ConceptualSchema> affectedSchemata = new ArrayList<>(affectedSymbols.size());
+		for(int symbol: affectedSymbols) {
+			ConceptualSchema schema = conceptualSchemataByName.get(schemaSymbols.getId(symbol));
+			if(schema != null) {
+				schemaSymbols.restoreDeclaredFeatures(symbol);
+				affectedSchemata.add(schema);
+			}
+		}
+		for(String id: removedIds) {
+			for(String refPotId: referencePotentialIdsByReferencedId.getOrDefault(id, Collections.emptySet())) {
+				if(!retiredReferencePotentialIds.contains(refPotId) && twm.hasReferencePotential(refPotId))
+					loadedReferencePotentials.add(twm.getReferencePotential(refPotId));
+			}
+		}
+		checkReferences(affectedSchemata, loadedReferencePotentials);
+		
+		if(initialized) {
+			resolveFeaturesOf(affectedSymbols, false);
+			addConceptsLackedByWordsAndReferencePotentials(loadedReferencePotentials, loadedWords);
+			addUniqueFeaturesToEmptyConcepts(affectedSchemata);
+			addConceptualSchemataToTLS(getModel());
+			freezeIndexes();
+		}
+	}
+	
+	private void removeLexicalizedConceptualSchema(String id, AstDelta.Entry entry) {
+		ConceptualSchema removedSchema = conceptualSchemataByName.remove(id);
+		if(removedSchema != null) {
+			detachConceptualFeatures(removedSchema);
+		}
+		int symbol = schemaSymbols.getSymbol(id);
+		schemaSymbols.undefine(symbol);
+		if(symbol >= 0 && symbol < lexicalFeatureRowsBySymbol.size()) {
+			freeLexicalFeatures(lexicalFeatureRowsBySymbol.set(symbol, null));
+		}
+		lexicalizedConceptualSchemataByWord.remove(entry.getGraphemic(), id);
+		String refPotId = getReferencePotentialIdForLexicalizedConceptualSchema(id);
+		if(entry.getUri() != null) {
+			unindexReferencePotential(refPotId, entry.getUri());
+			retireReferencePotential(refPotId);
+		}
+	}
+	
+	/**
+	 * Marks the given reference potential as no longer encoded by REMMA, because
+	 * TWM does not permit removal of reference potentials.
+	 */
+	private void retireReferencePotential(String id) {
+		retiredReferencePotentialIds.add(id);
+		unindexReferencesOf(id);
+	}
+	
+	/**
+	 * Indexes the reference potential by the IDs of the schemata and reference
+	 * potentials it refers to, so that it can be checked again when one of them
+	 * is removed by {@link #reloadJSON(File, String)}.
+	 */
+	private void indexReferencesOf(ReferencePotential refPot) {
+		unindexReferencesOf(refPot.getId());
+		String[] referencedIds = Stream.of(refPot.getSchema(), refPot.getDeclaredIn(),
+				refPot.getRoleId(), refPot.getReturnId(), refPot.getRoleIn())
+				.filter(id -> id != null).distinct().toArray(String[]::new);
+		referencedIdsByReferencePotentialId.put(refPot.getId(), referencedIds);
+		for(String referencedId: referencedIds) {
+			referencePotentialIdsByReferencedId.computeIfAbsent(referencedId, id -> new HashSet<>())
+				.add(refPot.getId());
+		}
+	}
+	
+	private void unindexReferencesOf(String refPotId) {
+		String[] referencedIds = referencedIdsByReferencePotentialId.remove(refPotId);
+		if(referencedIds != null) {
+			for(String referencedId: referencedIds) {
+				Set<String> refPotIds = referencePotentialIdsByReferencedId.get(referencedId);
+				if(refPotIds != null && refPotIds.remove(refPotId) && refPotIds.isEmpty()) {
+					referencePotentialIdsByReferencedId.remove(referencedId);
+				}
+			}
+		}
+	}
+	
 	private void loadLexicalizedConceptualSchema(JSONObject obj, String ct) {
 		try {
 			String id = obj.getString(JSONKey.ID.name());
@@ -291,8 +664,13 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 			boolean isTechnical = obj.getBoolean(JSONKey.TEC.name());
 			
 			Map<String,Object> lexicalFeatures = getFeatureMap(obj.getJSONObject(JSONKey.LF.name()));
-			List<String> conceptualFeatures = getFeatureList(obj.getJSONArray(JSONKey.CF.name()));
-			boolean isObject = conceptualFeatures.contains(featureThatMarksMethodSchemata);
+			int[] encodedFeatures = getEncodedFeatures(obj.getJSONArray(JSONKey.CF.name()));
+			if(loadingReferenceChecker != null) {
+				loadingReferenceChecker.addSchema(id, encodedFeatures);
+			}
+			List<String> conceptualFeatures = createConceptualFeatures(id, encodedFeatures);
+			boolean isObject = SchemaSymbolTable.containsFeature(encodedFeatures,
+					schemaSymbols.encode(featureThatMarksMethodSchemata));
 			if(obj.has(JSONKey.SF.name())
 					&& obj.getJSONObject(JSONKey.SF.name()).length() > 0) {
 				String graphemic = (String)lexicalFeatures.get(LexicalFeatures.graphemic.name());
@@ -322,12 +700,12 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 			// keep ast.json brief).
 			
 			LexicalizedConceptualSchema result = new LexicalizedConceptualSchema(id, ct, scope, activation,
-					isTechnical, isObject, lexicalFeatures, conceptualFeatures);
+					isTechnical, isObject, createLexicalFeatures(id, lexicalFeatures), conceptualFeatures);
 			
 			// This will purposely overwrite old schema definitions under the same ID
 			// that might have been generated from Type- and MethodBindings before the
 			// Type- or MethodDeclaration has been processed.
-			conceptualSchemataByName.put(id, result);
+			indexConceptualSchema(result, encodedFeatures);
 			conceptualSchemata.add(result);
 			String graphemic = (String)lexicalFeatures.get(LexicalFeatures.graphemic.name());
 			addLexicalizedConceptualSchemaByWord(graphemic, id);
@@ -365,13 +743,19 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 					roleId,
 					returnId);
 			
-			ITWM twmModule = ((ITWM)getModel().getModule(ITWM.class));
 			if(declaredIn != null)
-				twmModule.prepareArguments(id);
+				twmRegistrations.prepareArguments(id);
 			if(roleIn != null)
-				twmModule.addArgument(roleIn, id, roleId);
-			twmModule.addReferencePotential(result);
+				twmRegistrations.addArgument(roleIn, id, roleId);
+			twmRegistrations.addReferencePotential(result);
+			if(loadingReferenceChecker != null) {
+				loadingReferenceChecker.addReferencePotential(result);
+			}
+			retiredReferencePotentialIds.remove(id);
 			indexReferencePotential(result);
+			if(reloadable) {
+				indexReferencesOf(result);
+			}
 		} catch (Exception e) {
 			LOGGER.error("Failed to load reference potential "+obj+": "+e.getMessage(), e);
 			throw e;
@@ -379,12 +763,18 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	}
 	
 	private void loadWord(JSONObject obj) {
+		Word word = decodeWord(obj);
+		words.put(word.getId(), word);
+		indexWord(word);
+	}
+	
+	private Word decodeWord(JSONObject obj) {
 		String id = obj.getString(JSONKey.ID.name());
 		Scope scope = Scope.create(obj.getString(JSONKey.SCOPE.name()));
 		Map<String,Object> lexicalFeatures = getFeatureMap(obj.getJSONObject(JSONKey.LF.name()));
 		String graphemic = (String)lexicalFeatures.get(LexicalFeatures.graphemic.name());
 		SpatialInfo spatial = getSpatialInfo(obj);
-		loadWord(id, scope, graphemic, spatial);
+		return new Word(id, scope, graphemic, spatial, null);
 	}
 
 	private Word loadWord(String id, Scope scope, String graphemic,
@@ -395,37 +785,57 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 		return result;
 	}
 	
+	/**
+	 * Removes the word, but only removes it from {@link #lexicalEntriesByPosition}
+	 * when {@link #flushLexicalEntryRemovals()} is invoked.
+	 */
+	private void removeWord(String id) {
+		Word word = words.remove(id);
+		if(word != null) {
+			removedWordIdsByUri.computeIfAbsent(word.getSpatial().getUri(), uri -> new HashSet<>()).add(id);
+		}
+	}
+	
+	/**
+	 * Removes the reference potential from {@link #lexicalEntriesByPosition}
+	 * when {@link #flushLexicalEntryRemovals()} is invoked.
+	 */
+	private void unindexReferencePotential(String id, String uri) {
+		removedReferencePotentialIdsByUri.computeIfAbsent(uri, u -> new HashSet<>()).add(id);
+	}
+	
+	/**
+	 * Removes the words and reference potentials that have been removed since
+	 * the last invocation from {@link #lexicalEntriesByPosition}, once per URI,
+	 * because each removal from the frozen index copies the entries of the URI.
+	 */
+	private void flushLexicalEntryRemovals() {
+		Set<String> uris = new HashSet<>(removedWordIdsByUri.keySet());
+		uris.addAll(removedReferencePotentialIdsByUri.keySet());
+		for(String uri: uris) {
+			Set<String> wordIds = removedWordIdsByUri.getOrDefault(uri, Collections.emptySet());
+			Set<String> refPotIds = removedReferencePotentialIdsByUri.getOrDefault(uri, Collections.emptySet());
+			lexicalEntriesByPosition.removeAll(uri,
+					object -> (isWord(object)?wordIds:refPotIds).contains(object.getId()));
+		}
+		removedWordIdsByUri.clear();
+		removedReferencePotentialIdsByUri.clear();
+	}
+	
 	private void indexWord(Word word) {
-		indexWordOrReferencePotential(word, word.getSpatial(), () -> {
-			return wordsByUriAndLine;
-		} );
+		lexicalEntriesByPosition.add(word);
 	}
 	
 	private void indexReferencePotential(ReferencePotential referencePotential) {
-		indexWordOrReferencePotential(referencePotential, referencePotential.getSpatial(), () -> {
-			return referencePotentialsByUriAndLine;
-		});
+		lexicalEntriesByPosition.add(referencePotential);
 	}
 	
-	protected <T> void indexWordOrReferencePotential(T object, SpatialInfo spatial,
-			Supplier<Map<String,Map<Integer,List<T>>>> index) {
-		String uri = spatial.getUri();
-		int line = spatial.getLine();
-		Map<Integer,List<T>> objectsAtUri = index.get().get(uri);
-		if(objectsAtUri == null) {
-			objectsAtUri = new HashMap<Integer,List<T>>();
-			List<T> objectsAtLine = new LinkedList<T>();
-			objectsAtLine.add(object);
-			objectsAtUri.put(line, objectsAtLine);
-			index.get().put(uri, objectsAtUri);
-		} else {
-			List<T> objectsAtLine = objectsAtUri.get(line);
-			if(objectsAtLine == null) {
-				objectsAtLine = new LinkedList<T>();
-				objectsAtUri.put(line, objectsAtLine);
-			}
-			objectsAtLine.add(object);
-		}		
+	private static boolean isReferencePotential(Word word) {
+		return word instanceof ReferencePotential;
+	}
+	
+	private static boolean isWord(Word word) {
+		return !(word instanceof ReferencePotential);
 	}
 	
 	/**
@@ -435,10 +845,52 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	 * @param line
 	 * @param column
 	 * @return Null, if no word has been added at the given position.
+	 * @see REMMAParticipant#RESOLVE_BY_COLUMN_SPAN
 	 */
 	public Word getWord(String uri, int line, int column) {
-		return getWordOrReferencePotential(uri, line, column,
-				() -> { return wordsByUriAndLine; } );
+		Word word = getExactWord(uri, line, column);
+		if(word == null && resolveByColumnSpan) {
+			word = getCoveringWord(uri, line, column);
+		}
+		return word;
+	}
+	
+	private Word getExactWord(String uri, int line, int column) {
+		Word word = lexicalEntriesByPosition.get(uri, line, column, REMMAModule::isWord);
+		if(word == null && astIndex != null) {
+			word = getIndexedWord(astIndex.getWordOrdinal(uri, line, column));
+		}
+		return word;
+	}
+	
+	/**
+	 * The eye-tracking data might be tokenized differently than the AST
+	 */
+	private Word getCoveringWord(String uri, int line, int column) {
+		Word word = lexicalEntriesByPosition.getCovering(uri, line, column, REMMAModule::isWord);
+		if(word == null && astIndex != null) {
+			word = getIndexedWord(astIndex.getCoveringWordOrdinal(uri, line, column));
+		}
+		return word;
+	}
+	
+	/**
+	 * Decodes a word from the memory-mapped ast.json, unless it has
+	 * been decoded recently.
+	 */
+	private Word getIndexedWord(int ordinal) {
+		if(ordinal == -1) {
+			return null;
+		}
+		// The cache is ordered by access, so even reads modify it
+		synchronized(decodedWords) {
+			Word word = decodedWords.get(ordinal);
+			if(word == null) {
+				word = decodeWord(astIndex.decodeWord(ordinal));
+				decodedWords.put(ordinal, word);
+			}
+			return word;
+		}
 	}
 	
 	/**
@@ -448,29 +900,45 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	 * @param line
 	 * @param column
 	 * @return Null, if no reference potential has been added at the given position.
+	 * @see REMMAParticipant#RESOLVE_BY_COLUMN_SPAN
 	 */
 	public ReferencePotential getReferencePotential(String uri, int line, int column) {
-		return getWordOrReferencePotential(uri, line, column,
-				() -> { return referencePotentialsByUriAndLine; } );
-	}
-	
-	protected <T extends Word> T getWordOrReferencePotential(String uri, int line, int column,
-			Supplier<Map<String,Map<Integer,List<T>>>> index) {
-		T result = null;
-		Map<Integer, List<T>> objectsAtUri = index.get().get(uri);
-		if(objectsAtUri != null) {
-			List<T> objectsAtLine = objectsAtUri.get(line);
-			if(objectsAtLine != null) {
-				for(T object: objectsAtLine) {
-					int objColumn = object.getSpatial().getColumn();
-					if(objColumn == column) {
-						result = object;
-						break;
-					}
-				}
+		ReferencePotential referencePotential = (ReferencePotential)
+				lexicalEntriesByPosition.get(uri, line, column, REMMAModule::isReferencePotential);
+		if(referencePotential == null && resolveByColumnSpan && getExactWord(uri, line, column) == null) {
+			// A word that starts exactly at the position is preferred over a
+			// reference potential that only covers it
+			referencePotential = (ReferencePotential)
+					lexicalEntriesByPosition.getCovering(uri, line, column, REMMAModule::isReferencePotential);
+		}
+		return referencePotential;
+	}
+	
+	/**
+	 * Returns the reference potential at the given location or, if there is
+	 * none, the word at the given location, looking up both at once. Yields
+	 * the same result as {@link #getReferencePotential(String, int, int)}
+	 * followed by {@link #getWord(String, int, int)}.
+	 * 
+	 * @param uri
+	 * @param line
+	 * @param column
+	 * @return Null, if neither a reference potential nor a word has been
+	 * 	added at the given position.
+	 * @see REMMAParticipant#RESOLVE_BY_COLUMN_SPAN
+	 */
+	public Word getReferencePotentialOrWord(String uri, int line, int column) {
+		Word word = lexicalEntriesByPosition.getPreferred(uri, line, column, REMMAModule::isReferencePotential);
+		if(word == null && astIndex != null) {
+			word = getIndexedWord(astIndex.getWordOrdinal(uri, line, column));
+		}
+		if(word == null && resolveByColumnSpan) {
+			word = lexicalEntriesByPosition.getCovering(uri, line, column, REMMAModule::isReferencePotential);
+			if(word == null) {
+				word = getCoveringWord(uri, line, column);
 			}
 		}
-		return result;
+		return word;
 	}
 	
 	private String getSchemaId(String potentialTypeName) {
@@ -494,8 +962,7 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 			ConceptualSchema schema = conceptualSchemataByName.get(schemaId);
 			if(schema != null) {
 				try {
-					IChunk schemaChunk = dm.getChunk(schemaId).get();
-					if(schemaChunk == null) {
+					if(!chunksInDM.contains(dm, schemaId)) {
 						twm.createConceptualSchemaAndDependentSchemataAndAddThemToDM(schemaId);
 					}
 				} catch(InterruptedException|ExecutionException e) {
@@ -508,17 +975,44 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	}
 	
 	public Word createWordAndEnsureLexicalizedSchema(Fixation.Word input) {
-		// Create word
+		Word word = createWord(input);
+		ensureLexicalizedSchemaOfCreatedWordIsInDM(word);
+		return word;
+	}
+	
+	/**
+	 * Ensures that the lexicalized schema of a word that was materialized
+	 * before the model started is in declarative memory when the word is
+	 * encoded for the first time, just as if the word had been created at
+	 * that time.
+	 * 
+	 * @return true, if the word had been materialized and had not been
+	 * 	encoded before
+	 * @see REMMAParticipant#MATERIALIZE_SYNTHETIC_SCHEMATA
+	 */
+	public boolean ensureLexicalizedSchemaOfMaterializedWordIsInDM(Word word) {
+		if(!materializedWordIds.remove(word.getId()))
+			return false;
+		ensureLexicalizedSchemaOfCreatedWordIsInDM(word);
+		return true;
+	}
+	
+	private Word createWord(Fixation.Word input) {
 		String id = "CS#UniqueWord$"+(nextUniqueFeatureId++);
-		Word word = loadWord(id, Scope.GLOBAL, input.getWord(),
+		if(initialized)
+			syntheticWordsAtRuntime.incrementAndGet();
+		return loadWord(id, Scope.GLOBAL, input.getWord(),
 				new SpatialInfo(input.getUri(), input.getLine(),
 						input.getColumn(), input.getLength()));
-		
+	}
+	
+	private void ensureLexicalizedSchemaOfCreatedWordIsInDM(Word word) {
 		// Ensure that there is a type schema with at least a single unique feature
 		String graphemic = word.getGraphemic();
 		List<String> schemata = lexicalizedConceptualSchemataByWord.get(graphemic);
+		String cSchemaId = getTypeSchemaId(graphemic, schemata);
 		boolean schemaAvailable = false;
-		if(schemata != null) {
+		if(schemata != null || cSchemaId != null) {
 			// Make sure that chunks for the existing type schemata are available in
 			// declarative memory, but only those, for which no reference potential
 			// exists (i.e. which cannot be activated by reading them).
@@ -526,10 +1020,7 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 					getModel().getDeclarativeModule();
 			ITWM twm = (ITWM)getModel().getModule(ITWM.class);
 			
-			// TODO: Does not work correctly for qualified IDs of schemata
-			// with an unqualified graphemic representation
-			String cSchemaId = getSchemaId(word.getGraphemic());
-			if(schemata.contains(cSchemaId)) {
+			if(cSchemaId != null) {
 				// Encode a class that will later be read
 				if(existingSchemaIsInDMOrHasNowBeenAdded(dm, twm, cSchemaId)) {
 					schemaAvailable = true;
@@ -550,16 +1041,67 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 			// Create a new type schema with a unique feature
 			createTypeSchemaFromGraphemicAndAddItToDM(graphemic);
 		}
-		return word;
+	}
+	
+	/**
+	 * Returns whether a word with the given graphemic representation that is
+	 * created now would require a synthetic type schema, i.e. whether there is
+	 * neither a type schema nor a schema without reference potential for it.
+	 * Unlike {@link #ensureLexicalizedSchemaOfCreatedWordIsInDM(Word)}, this
+	 * method does not access declarative memory.
+	 */
+	private boolean requiresSyntheticTypeSchema(String graphemic) {
+		List<String> schemata = lexicalizedConceptualSchemataByWord.get(graphemic);
+		if(getTypeSchemaId(graphemic, schemata) != null)
+			return false;
+		if(schemata != null) {
+			ITWM twm = (ITWM)getModel().getModule(ITWM.class);
+			for(String schemaId: schemata) {
+				String refPotId = getReferencePotentialIdForLexicalizedConceptualSchema(schemaId);
+				if(!twm.hasReferencePotential(refPotId)
+						&& !twm.isDependentSchema(schemaId))
+					return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns the ID of the type schema that a word with the given graphemic
+	 * representation refers to: {@code CS#<graphemic>}, if it is among the
+	 * given schemata that have the graphemic representation, or otherwise the
+	 * only type schema whose qualified name ends with the graphemic
+	 * representation, e.g. {@code CS#java.util.List} for {@code List}.
+	 * 
+	 * @param schemata the IDs of the schemata with the given graphemic
+	 * 	representation, or null
+	 * @return the ID, or null, if there is no such type schema or the
+	 * 	qualified name is ambiguous
+	 */
+	private String getTypeSchemaId(String graphemic, List<String> schemata) {
+		String schemaId = getSchemaId(graphemic);
+		if(schemata != null && schemata.contains(schemaId))
+			return schemaId;
+		String typeSchemaId = null;
+		for(String candidate: lexicalizedConceptualSchemataByWord.getByName(graphemic)) {
+			if(candidate.startsWith(getSchemaId(""))) {
+				if(typeSchemaId != null)
+					return null;
+				typeSchemaId = candidate;
+			}
+		}
+		return typeSchemaId;
 	}
 	
 	private boolean existingSchemaIsInDMOrHasNowBeenAdded(INonMergingDeclarativeModule dm, ITWM twm, String schemaId) {
 		try {
-			IChunk schemaChunk = dm.getChunk(schemaId).get();
-			if(schemaChunk == null) {
+			if(syntheticSchemaFeaturesNotInDM.containsKey(schemaId)) {
+				addSyntheticSchemaToDM(dm, twm, schemaId);
+			} else if(!chunksInDM.contains(dm, schemaId)) {
 				ConceptualSchema schema = conceptualSchemataByName.get(schemaId);
-				schemaChunk = twm.toChunk(schema);
+				IChunk schemaChunk = twm.toChunk(schema);
 				twm.addToDMAndEnsureNameIsUnique(dm, schemaChunk);
+				chunksInDM.added(schemaChunk);
 			}
 			return true;
 		} catch (InterruptedException | ExecutionException e) {
@@ -569,15 +1111,7 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	}
 	
 	private void addLexicalizedConceptualSchemaByWord(String word, String schemaId) {
-		List<String> schemaIds = lexicalizedConceptualSchemataByWord.get(word);
-		if(schemaIds == null) {
-			lexicalizedConceptualSchemataByWord.put(word, Collections.singletonList(schemaId));
-		} else if(!schemaIds.contains(schemaId)) {
-			List<String> newIds = new ArrayList<String>(schemaIds.size()+1);
-			newIds.addAll(schemaIds);
-			newIds.add(schemaId);
-			lexicalizedConceptualSchemataByWord.put(word, newIds);
-		}
+		lexicalizedConceptualSchemataByWord.add(word, schemaId);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -600,15 +1134,98 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	 * to types and direct references to tokens.
 	 * 
 	 * @param array
-	 * @return
+	 * @return the features encoded via {@link #schemaSymbols}
 	 */
-	private List<String> getFeatureList(JSONArray array) {
+	private int[] getEncodedFeatures(JSONArray array) {
 		int length = array.length();
-		List<String> list = new ArrayList<String>(length);
+		int[] features = new int[length];
 		for(int i=0;i<length;i++) {
-			list.add(array.getString(i));
+			features[i] = schemaSymbols.encode(array.getString(i));
+		}
+		return features;
+	}
+	
+	/**
+	 * Makes the given schema available under its ID and records its encoded
+	 * conceptual features in {@link #schemaSymbols}.
+	 */
+	private void indexConceptualSchema(ConceptualSchema schema, int[] encodedFeatures) {
+		ConceptualSchema overwrittenSchema = conceptualSchemataByName.put(
+				schemaSymbols.canonicalize(schema.getId()), schema);
+		if(overwrittenSchema != null && overwrittenSchema != schema) {
+			detachConceptualFeatures(overwrittenSchema);
+		}
+		schemaSymbols.define(schema.getId(), encodedFeatures);
+	}
+	
+	/**
+	 * @return a view of the features in {@link #schemaSymbols}, or a list of
+	 * 	the decoded features, if the compact schema store is not used
+	 * @see REMMAParticipant#COMPACT_SCHEMA_STORE
+	 */
+	private List<String> createConceptualFeatures(String schemaId, int[] encodedFeatures) {
+		if(compactSchemaStore) {
+			return new SchemaFeatureList(schemaSymbols, schemaSymbols.intern(schemaId));
+		}
+		return schemaSymbols.decode(encodedFeatures, new ArrayList<String>(encodedFeatures.length));
+	}
+	
+	/**
+	 * @return a view of a row in {@link #lexicalFeatureColumns}, or the given
+	 * 	features, if the compact schema store is not used
+	 * @see REMMAParticipant#COMPACT_SCHEMA_STORE
+	 */
+	private Map<String,Object> createLexicalFeatures(String schemaId, Map<String,Object> lexicalFeatures) {
+		if(!compactSchemaStore)
+			return lexicalFeatures;
+		Map<String,Object> row = lexicalFeatureColumns.add(lexicalFeatures);
+		int symbol = schemaSymbols.intern(schemaId);
+		while(lexicalFeatureRowsBySymbol.size() <= symbol) {
+			lexicalFeatureRowsBySymbol.add(null);
+		}
+		// The row of an overwritten schema is not used anymore
+		freeLexicalFeatures(lexicalFeatureRowsBySymbol.set(symbol, row));
+		return row;
+	}
+	
+	/**
+	 * Releases the row in {@link #lexicalFeatureColumns} of a schema that has
+	 * been overwritten or removed, after copying its features into the view.
+	 */
+	private void freeLexicalFeatures(Map<String,Object> row) {
+		if(row != null) {
+			lexicalFeatureColumns.free(row);
+		}
+	}
+	
+	/**
+	 * Makes the conceptual features of a schema independent of
+	 * {@link #schemaSymbols} before the schema is overwritten or removed.
+	 */
+	private static void detachConceptualFeatures(ConceptualSchema schema) {
+		if(schema.getConceptualFeatures() instanceof SchemaFeatureList) {
+			((SchemaFeatureList)schema.getConceptualFeatures()).detach();
+		}
+	}
+	
+	private static boolean isAttached(ConceptualSchema schema) {
+		return schema.getConceptualFeatures() instanceof SchemaFeatureList
+				&& ((SchemaFeatureList)schema.getConceptualFeatures()).isAttached();
+	}
+	
+	/**
+	 * Adds the given feature to the conceptual features of the given schema
+	 * and to its encoded features in {@link #schemaSymbols}.
+	 */
+	private void addConceptualFeature(ConceptualSchema schema, String featureId) {
+		String feature = schemaSymbols.canonicalize(featureId);
+		if(!isAttached(schema)) {
+			schema.getConceptualFeatures().add(feature);
+		}
+		if(conceptualSchemataByName.get(schema.getId()) == schema) {
+			schemaSymbols.addFeature(schemaSymbols.getSymbol(schema.getId()),
+					schemaSymbols.encode(feature));
 		}
-		return list;
 	}
 	
 	private SpatialInfo getSpatialInfo(JSONObject obj) {
@@ -623,7 +1240,7 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 			SpatialInfo spatial, Boolean isDefinite, String referent, String coReferenceChain,
 			String declaredIn, String schema, String roleIn, String roleId, String returnId) {
 		if(coReferenceChain != null)
-			((ITWM)getModel().getModule(ITWM.class)).addToCoReferenceChain(id, coReferenceChain);
+			twmRegistrations.addToCoReferenceChain(id, coReferenceChain);
 		return new ReferencePotential(id, scope, graphemic, spatial, null, isDefinite, referent,
 				coReferenceChain, declaredIn, schema, roleIn, roleId, returnId);
 	}
@@ -633,46 +1250,76 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	 * - that all conceptual features are schema ids or schema ids prefixed by featuresOf:,
 	 * - that all reference potentials' schema, declaredIn, roleId and returnId attributes are null or schema ids, and
 	 * - that all reference potentials' roleIn attributes are reference potential ids.
+	 * 
+	 * @return the number of checked schemata and reference potentials
 	 */
-	private void checkReferences() {
-		// Ensure that all conceptual features are schema ids or schema ids prefixed by featuresOf:
-		for(ConceptualSchema schema: conceptualSchemata) {
-			for(Object conceptualFeature: schema.getConceptualFeatures()) {
-				if(!(conceptualFeature instanceof String)) {
-					throw new IllegalStateException("Non-string feature "+conceptualFeature+" in schema "+schema.getId());
-				} else if (((String)conceptualFeature).startsWith("featuresOf:")){
-					String importSource = ((String)conceptualFeature).substring(11);
-					if(!conceptualSchemataByName.containsKey(importSource))
-						throw new IllegalStateException("Schema "+schema.getId()+" cannot import features from missing schema "+importSource);
-				} else {
-					if(!conceptualSchemataByName.containsKey(conceptualFeature))
-						throw new IllegalStateException("Schema "+schema.getId()+" refers to missing conceptual feature "+conceptualFeature);
-				}
-			}
+	private int checkReferences() {
+		ITWM twmModule = ((ITWM)getModel().getModule(ITWM.class));
+		return checkReferences(conceptualSchemata, twmModule.getReferencePotentials());
+	}
+	
+	/**
+	 * Ensures
+	 * - that all conceptual features are schema ids or schema ids prefixed by featuresOf:,
+	 * - that all reference potentials' schema, declaredIn, roleId and returnId attributes are null or schema ids, and
+	 * - that all reference potentials' roleIn attributes are reference potential ids.
+	 * 
+	 * The checks are performed in parallel on snapshots of the given schemata
+	 * and reference potentials, and all violations are reported at once.
+	 * 
+	 * @return the number of checked schemata and reference potentials
+	 * @throws IllegalStateException if there are violations
+	 */
+	private int checkReferences(Collection<ConceptualSchema> schemata,
+			Collection<ReferencePotential> referencePotentials) {
+		String[] schemaIds = new String[schemata.size()];
+		int[][] schemaFeatures = new int[schemata.size()][];
+		int index = 0;
+		for(ConceptualSchema schema: schemata) {
+			schemaIds[index] = schema.getId();
+			// Might encode the features of overwritten schemata, hence not in parallel
+			schemaFeatures[index++] = getEncodedFeatures(schema);
 		}
-		
-		// Ensure
-		// - that all reference potentials' schema, declaredIn, roleId and returnId attributes are null or schema ids, and
-		// - that all reference potentials' roleIn attributes are reference potential ids.
 		ITWM twmModule = ((ITWM)getModel().getModule(ITWM.class));
-		for(String refPotId: twmModule.getReferencePotentialIds()) {
-			ReferencePotential refPot = twmModule.getReferencePotential(refPotId);
-			String schema = refPot.getSchema();
-			if(schema != null && !conceptualSchemataByName.containsKey(schema))
-				throw new IllegalStateException("Reference potential "+refPotId+" refers to missing schema="+schema);
-			String declaredIn = refPot.getDeclaredIn();
-			if(declaredIn != null && !conceptualSchemataByName.containsKey(declaredIn))
-				throw new IllegalStateException("Reference potential "+refPotId+" refers to missing declaration="+declaredIn);
-			String roleId = refPot.getRoleId();
-			if(roleId != null && !conceptualSchemataByName.containsKey(roleId))
-				throw new IllegalStateException("Reference potential "+refPotId+" refers to missing role="+roleId);
-			String returnId = refPot.getReturnId();
-			if(returnId != null && !conceptualSchemataByName.containsKey(returnId))
-				throw new IllegalStateException("Reference potential "+refPotId+" refers to missing return="+returnId);
+		List<ReferencePotential> referencePotentialsToCheck = new ArrayList<>(referencePotentials.size());
+		Set<String> missingReferencePotentialIds = new HashSet<>();
+		for(ReferencePotential refPot: referencePotentials) {
+			if(retiredReferencePotentialIds.contains(refPot.getId()))
+				continue;
+			referencePotentialsToCheck.add(refPot);
 			String roleIn = refPot.getRoleIn();
 			if(roleIn != null && !twmModule.hasReferencePotential(roleIn))
-				throw new IllegalStateException("Reference potential "+refPotId+" refers to missing reference potential="+roleIn);
+				missingReferencePotentialIds.add(roleIn);
+		}
+		ReferenceCheckReport report = ReferenceChecker.check(schemaIds, schemaFeatures,
+				referencePotentialsToCheck.toArray(new ReferencePotential[referencePotentialsToCheck.size()]),
+				missingReferencePotentialIds, schemaSymbols);
+		return handleReferenceCheckReport(report);
+	}
+	
+	/**
+	 * Reports the violations of the references checked while loading.
+	 * 
+	 * @return the number of checked schemata and reference potentials
+	 * @throws IllegalStateException if there are violations
+	 * @see REMMAParticipant#CHECK_REFERENCES_WHILE_LOADING
+	 */
+	private int finishLoadingReferenceCheck() {
+		ITWM twmModule = ((ITWM)getModel().getModule(ITWM.class));
+		ReferenceCheckReport report = loadingReferenceChecker.finish(twmModule::hasReferencePotential);
+		loadingReferenceChecker = null;
+		return handleReferenceCheckReport(report);
+	}
+	
+	private int handleReferenceCheckReport(ReferenceCheckReport report) {
+		if(report.hasViolations()) {
+			for(ReferenceCheckReport.Violation violation: report.getViolations()) {
+				LOGGER.error(violation);
+			}
 		}
+		LOGGER.info(report.toSummary());
+		report.throwIfViolated();
+		return report.getCheckedSchemata()+report.getCheckedReferencePotentials();
 	}
 	
 	/**
@@ -680,26 +1327,50 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	 * have a lexicalized concept for the name they contain.
 	 * 
 	 * @see LexicalizedConceptualSchema
+	 * @return the number of added concepts
 	 */
-	private void addConceptsLackedByWordsAndReferencePotentials() {
-		// Add missing concepts for reference potentials
+	private int addConceptsLackedByWordsAndReferencePotentials() {
 		ITWM twmModule = ((ITWM)getModel().getModule(ITWM.class));
-		for(ReferencePotential pot: twmModule.getReferencePotentials()) {
+		int added = addConceptsLackedByWordsAndReferencePotentials(twmModule.getReferencePotentials(),
+				words.values());
+		
+		// Add missing concepts for words that have not been decoded from ast.json
+		if(astIndex != null) {
+			for(String graphemic: astIndex.getGraphemics()) {
+				if(!lexicalizedConceptualSchemataByWord.containsKey(graphemic)) {
+					createTypeSchemaFromGraphemicAndAddItToDM(graphemic);
+					added++;
+				}
+			}
+		}
+		return added;
+	}
+	
+	private int addConceptsLackedByWordsAndReferencePotentials(
+			Collection<ReferencePotential> referencePotentials, Collection<Word> words) {
+		int added = 0;
+		// Add missing concepts for reference potentials
+		for(ReferencePotential pot: referencePotentials) {
+			if(retiredReferencePotentialIds.contains(pot.getId()))
+				continue;
 			String graphemic = pot.getGraphemic();
 			List<String> schemata = lexicalizedConceptualSchemataByWord.get(graphemic);
 			if(schemata == null) {
 				createTypeSchemaFromGraphemicAndAddItToDM(graphemic);
+				added++;
 			}
 		}
 		
 		// Add missing concepts for words
-		for(Word word: words.values()) {
+		for(Word word: words) {
 			String graphemic = word.getGraphemic();
 			List<String> schemata = lexicalizedConceptualSchemataByWord.get(graphemic);
 			if(schemata == null) {
 				createTypeSchemaFromGraphemicAndAddItToDM(graphemic);
+				added++;
 			}
 		}
+		return added;
 	}
 	
 	/**
@@ -715,10 +1386,30 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	 * @param word
 	 */
 	private LexicalizedConceptualSchema createTypeSchemaFromGraphemicAndAddItToDM(String word) {
+		LexicalizedConceptualSchema schema = createTypeSchemaFromGraphemic(word);
 		
 		// Make sure a non-merging declarative module is used
 		INonMergingDeclarativeModule dm = (INonMergingDeclarativeModule)
 				getModel().getDeclarativeModule();
+		ITWM twm = (ITWM)getModel().getModule(ITWM.class);
+		try {
+			addSyntheticSchemaToDM(dm, twm, schema.getId());
+		} catch (InterruptedException | ExecutionException e) {
+			LOGGER.error("Failed to add synthetic schema "+schema.getId()
+					+" or its unique feature to declarative memory");
+		}
+		return schema;
+	}
+	
+	/**
+	 * Adds a schema like {@link #createTypeSchemaFromGraphemicAndAddItToDM(String)},
+	 * but does not add it to declarative memory. Its unique feature is kept
+	 * until {@link #addSyntheticSchemaToDM(INonMergingDeclarativeModule, ITWM, String)}
+	 * adds both to declarative memory.
+	 */
+	private LexicalizedConceptualSchema createTypeSchemaFromGraphemic(String word) {
+		if(initialized)
+			syntheticSchemataAtRuntime.incrementAndGet();
 		
 		// Create a schema from the word
 		String id = "CS#Synthetic$"+word;
@@ -726,112 +1417,154 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 		lexicalFeatures.put(LexicalFeatures.graphemic.name(), word);
 		LexicalizedConceptualSchema schema = new LexicalizedConceptualSchema(id, "Type",
 				Scope.GLOBAL, 0.0, false, true,
-				lexicalFeatures, new LinkedList<String>());
+				createLexicalFeatures(id, lexicalFeatures), createConceptualFeatures(id, new int[0]));
 		
+		// Index
+		indexConceptualSchema(schema, schemaSymbols.encode(schema.getConceptualFeatures()));
+		conceptualSchemata.add(schema);
+
 		// Add a unique feature
 		ConceptualSchema featureSchema = createUniqueTokenSchema(true);
-		schema.getConceptualFeatures().add(featureSchema.getId());
+		addConceptualFeature(schema, featureSchema.getId());
 
-		// Index
-		conceptualSchemataByName.put(id, schema);
-		conceptualSchemata.add(schema);
 		addLexicalizedConceptualSchemaByWord(word, id);
-		
-		// Add to declarative memory
-		try {
-			ITWM twm = (ITWM)getModel().getModule(ITWM.class);
-			twm.addToDMAndEnsureNameIsUnique(dm, twm.toChunk(featureSchema));
-			twm.addToDMAndEnsureNameIsUnique(dm, twm.toChunk(schema));
-		} catch (InterruptedException | ExecutionException e) {
-			LOGGER.error("Failed to add synthetic schema "+schema.getId()
-					+" or its unique feature "+featureSchema.getId()
-					+" to declarative memory");
-		}
+		syntheticSchemaFeaturesNotInDM.put(id, featureSchema);
 		return schema;
 	}
 	
+	/**
+	 * Adds a schema created by {@link #createTypeSchemaFromGraphemic(String)}
+	 * and its unique feature to declarative memory.
+	 */
+	private void addSyntheticSchemaToDM(INonMergingDeclarativeModule dm, ITWM twm,
+			String schemaId) throws InterruptedException, ExecutionException {
+		ConceptualSchema featureSchema = syntheticSchemaFeaturesNotInDM.remove(schemaId);
+		IChunk featureChunk = twm.toChunk(featureSchema);
+		twm.addToDMAndEnsureNameIsUnique(dm, featureChunk);
+		chunksInDM.added(featureChunk);
+		IChunk schemaChunk = twm.toChunk(conceptualSchemataByName.get(schemaId));
+		twm.addToDMAndEnsureNameIsUnique(dm, schemaChunk);
+		chunksInDM.added(schemaChunk);
+	}
+	
 	/**
 	 * Replaces all conceptual features with the prefix featuresOf:&lt;schemaId&gt; by the
 	 * the features of the schema identified by &lt;schemaId&gt;.
+	 * 
+	 * Resolution is performed on the encoded features in {@link #schemaSymbols}
+	 * and the resolved features are written back to the schemata afterwards.
+	 * 
+	 * @return the number of schemata whose features have been resolved
 	 */
-	private void resolveFeaturesOf() {
-		int iterations = 0;
-		List<ConceptualSchema> schemataWithFeaturesOf = new LinkedList<>(conceptualSchemata);
-		do {
-			if(iterations++ > 10) {
-				throw new IllegalStateException("Could not remove all featuresOf after "
-						+iterations+" iterations, "+schemataWithFeaturesOf.size()
-						+" featuresOf declarations remaining");
-			} else {
-				Iterator<ConceptualSchema> iterator = schemataWithFeaturesOf.iterator();
-				while(iterator.hasNext()) {
-					ConceptualSchema conceptualSchema = iterator.next();
-					List<String> conceptualFeatures = conceptualSchema.getConceptualFeatures();
-					List<String> featuresOfEntries = getFeaturesOfEntries(conceptualFeatures);
-					if(featuresOfEntries.isEmpty()) {
-						iterator.remove();
-					} else {
-						for(Object featuresOfEntry: featuresOfEntries) {
-							String importSource = ((String)featuresOfEntry).substring(11);
-							ConceptualSchema featureSource = conceptualSchemataByName.get(importSource);
-							if(featureSource != null) {
-								conceptualFeatures.remove(featuresOfEntry);
-								conceptualFeatures.addAll(featureSource.getConceptualFeatures());
-							} else {
-								throw new IllegalStateException("Could not find feature "
-										+importSource+" referenced from "+conceptualSchema.getId());
-							}
-						}
-						if(getFeaturesOfEntries(conceptualFeatures).isEmpty()) {
-							iterator.remove();
-						}
-					}
+	private int resolveFeaturesOf() {
+		List<Integer> symbols = new ArrayList<>(schemaSymbols.size());
+		for(int symbol=0;symbol<schemaSymbols.size();symbol++) {
+			symbols.add(symbol);
+		}
+		return resolveFeaturesOf(symbols, true);
+	}
+	
+	/**
+	 * Resolves the featuresOf: imports of the given schemata.
+	 * 
+	 * @param symbols The symbols of the schemata to resolve. Schemata that the
+	 * 	given schemata import from are resolved as well, if necessary.
+	 * @param includeOverwritten If true, schemata that have been overwritten by
+	 * 	later definitions under the same ID are resolved as well.
+	 * @return the number of schemata whose features have been resolved
+	 */
+	private int resolveFeaturesOf(Collection<Integer> symbols, boolean includeOverwritten) {
+		List<Integer> resolvedSymbols = schemaSymbols.resolveFeaturesOf(symbols);
+		
+		// Write back the resolved features
+		for(int symbol: resolvedSymbols) {
+			ConceptualSchema schema = conceptualSchemataByName.get(schemaSymbols.getId(symbol));
+			if(isAttached(schema))
+				continue;
+			List<String> conceptualFeatures = schema.getConceptualFeatures();
+			conceptualFeatures.clear();
+			schemaSymbols.decode(schemaSymbols.getFeatures(symbol), conceptualFeatures);
+		}
+		// Schemata that have been overwritten by later definitions under the same ID
+		// are not referenced via featuresOf: and can be resolved against the result. 
+		for(ConceptualSchema schema: includeOverwritten?conceptualSchemata:Collections.<ConceptualSchema>emptyList()) {
+			if(conceptualSchemataByName.get(schema.getId()) != schema) {
+				int[] features = getEncodedFeatures(schema);
+				if(SchemaSymbolTable.hasFeaturesOf(features)) {
+					List<String> conceptualFeatures = schema.getConceptualFeatures();
+					conceptualFeatures.clear();
+					schemaSymbols.decode(schemaSymbols.expandFeaturesOf(schema.getId(), features),
+							conceptualFeatures);
 				}
 			}
-		} while(schemataWithFeaturesOf.size() > 0);
+		}
+		return resolvedSymbols.size();
 	}
-
-	private List<String> getFeaturesOfEntries(List<String> conceptualFeatures) {
-		return conceptualFeatures
-				.stream()
-				.filter(f -> f instanceof String && ((String)f).startsWith("featuresOf:"))
-				.collect(Collectors.toList());
+	
+	/**
+	 * Returns the encoded conceptual features of the given schema: those
+	 * recorded in {@link #schemaSymbols} for the current definition of
+	 * the schema's ID, or newly encoded features for overwritten definitions.
+	 */
+	private int[] getEncodedFeatures(ConceptualSchema schema) {
+		if(conceptualSchemataByName.get(schema.getId()) == schema) {
+			return schemaSymbols.getFeatures(schemaSymbols.getSymbol(schema.getId()));
+		} else {
+			return schemaSymbols.encode(schema.getConceptualFeatures());
+		}
 	}
 	
 	/**
 	 * Adds a unique feature to each conceptual schema that does not have a single feature.
+	 * 
+	 * @return the number of added unique features
 	 */
-	private void addUniqueFeaturesToEmptyConcepts() {
+	private int addUniqueFeaturesToEmptyConcepts() {
+		return addUniqueFeaturesToEmptyConcepts(conceptualSchemata);
+	}
+	
+	private int addUniqueFeaturesToEmptyConcepts(Collection<ConceptualSchema> schemata) {
 		// Make sure a non-merging declarative module is used
 		INonMergingDeclarativeModule dm = (INonMergingDeclarativeModule)
 				getModel().getDeclarativeModule();
 		
-		// Create unique features for empty schemata, but warn,
+		// Add unique features to empty schemata that are not unique
+		// features themselves.
+		List<ConceptualSchema> emptySchemata = new ArrayList<>();
+		List<String> emptySchemaIds = new ArrayList<>();
+		for(ConceptualSchema schema: schemata) {
+			if(!schema.getId().startsWith("CS#Unique$")
+					&& schema.getConceptualFeatures().isEmpty()) {
+				emptySchemata.add(schema);
+				emptySchemaIds.add(schema.getId());
+			}
+		}
+		
+		// Create unique features for empty schemata, but fail,
 		// if the schema has been added to declarative memory
 		// already.
+		Set<String> emptySchemaIdsInDM;
+		try {
+			emptySchemaIdsInDM = chunksInDM.getContained(dm, emptySchemaIds);
+		} catch (InterruptedException | ExecutionException e) {
+			LOGGER.error("Failed to check if the "+emptySchemaIds.size()+" empty schemata"
+					+" are in declarative memory already, before adding "
+					+"unique features: "+e.getMessage(), e);
+			return 0;
+		}
 		LinkedList<ConceptualSchema> schemataToAdd = new LinkedList<>();
-		for(ConceptualSchema schema: conceptualSchemata) {
-			// Add unique features to empty schemata that are not unique
-			// features themselves.
-			if(!schema.getId().startsWith("CS#Unique$")
-					&& schema.getConceptualFeatures().isEmpty()) {
-				try {
-					if(dm.getChunk(schema.getId()).get() != null) {
-						throw new IllegalStateException("Cannot add unique feature to schema"
-							+" that has already been added to declarative memory: "
-							+schema.getId());
-					}
-					ConceptualSchema featureSchema = createUniqueTokenSchema(false);
-					schemataToAdd.add(featureSchema);
-					schema.getConceptualFeatures().add(featureSchema.getId());
-				} catch (InterruptedException | ExecutionException e) {
-					LOGGER.error("Failed to check if the empty schema "+schema.getId()
-							+" is in declarative memory already, before adding a "
-							+"unique feature: "+e.getMessage(), e);
-				}
+		for(ConceptualSchema schema: emptySchemata) {
+			if(emptySchemaIdsInDM.contains(schema.getId())) {
+				throw new IllegalStateException("Cannot add unique feature to schema"
+					+" that has already been added to declarative memory: "
+					+schema.getId());
 			}
+			ConceptualSchema featureSchema = createUniqueTokenSchema(false);
+			schemataToAdd.add(featureSchema);
+			addConceptualFeature(schema, featureSchema.getId());
 		}
 		conceptualSchemata.addAll(schemataToAdd);
+		return schemataToAdd.size();
 	}
 	
 	/**
@@ -847,9 +1580,11 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	 */
 	private ConceptualSchema createUniqueTokenSchema(boolean add) {
 		String id = "CS#Unique$"+(nextUniqueFeatureId++);
+		if(initialized)
+			syntheticSchemataAtRuntime.incrementAndGet();
 		ConceptualSchema schema = new ConceptualSchema(id, "Token", Scope.GLOBAL, 0.0, false, true,
-				new LinkedList<String>());
-		conceptualSchemataByName.put(id, schema);
+				createConceptualFeatures(id, new int[0]));
+		indexConceptualSchema(schema, schemaSymbols.encode(schema.getConceptualFeatures()));
 		if(add) {
 			conceptualSchemata.add(schema);
 		}
@@ -871,16 +1606,216 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 		if (LOGGER.isDebugEnabled())
 			LOGGER.debug("initializing " + getClass().getSimpleName());
 		
-		addConceptsLackedByWordsAndReferencePotentials();
-		resolveFeaturesOf();
-		addUniqueFeaturesToEmptyConcepts();
-		addConceptualSchemataToTLS(getModel());
+		StartupStatistics.Measurement measurement = startupStatistics.begin("addConceptsLackedByWordsAndReferencePotentials");
+		measurement.finish(addConceptsLackedByWordsAndReferencePotentials());
+		measurement = startupStatistics.begin("resolveFeaturesOf");
+		measurement.finish(resolveFeaturesOf());
+		measurement = startupStatistics.begin("addUniqueFeaturesToEmptyConcepts");
+		measurement.finish(addUniqueFeaturesToEmptyConcepts());
+		measurement = startupStatistics.begin("addConceptualSchemataToTLS");
+		measurement.finish(addConceptualSchemataToTLS(getModel()));
+		if(Boolean.parseBoolean(getParameter(MATERIALIZE_SYNTHETIC_SCHEMATA))) {
+			measurement = startupStatistics.begin("materializeSyntheticSchemata");
+			measurement.finish(materializeSyntheticSchemata());
+		}
+		measurement = startupStatistics.begin("freezeIndexes");
+		measurement.finish(freezeIndexes());
+		LOGGER.info(startupStatistics.toSummary());
+		initialHeapFootprint = getHeapFootprint();
+		LOGGER.info(initialHeapFootprint.toSummary());
+		initialized = true;
+	}
+
+	/**
+	 * Reads the fixated words in the event log and creates words and, if
+	 * necessary, synthetic schemata for those words that neither correspond
+	 * to a word nor to a reference potential, so that they need not be
+	 * created while the model runs. Only the words and schemata are created
+	 * here, their chunks are added to declarative memory when the words are
+	 * encoded, so that creation times and activations are not affected.
+	 * 
+	 * @return the number of created words
+	 * @see #createWordAndEnsureLexicalizedSchema(Fixation.Word)
+	 * @see REMMAParticipant#MATERIALIZE_SYNTHETIC_SCHEMATA
+	 */
+	private int materializeSyntheticSchemata() {
+		int created = 0;
+		try(BufferedReader reader = createEventsReader()) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				JSONArray array = (JSONArray)new JSONTokener(line).nextValue();
+				String type = array.getString(0);
+				if(type.equals("FIX")) {
+					JSONArray wordsArray = array.getJSONArray(11);
+					for(int i=0;i<wordsArray.length();i++) {
+						created += materializeWord(getWord(wordsArray.getJSONArray(i)));
+					}
+				}
+			}
+		} catch(IOException e) {
+			LOGGER.error("Failed to read the vocabulary of the event log: "+e.getMessage(), e);
+		}
+		return created;
+	}
+	
+	private int materializeWord(Fixation.Word input) {
+		if(getReferencePotentialOrWord(input.getUri(), input.getLine(), input.getColumn()) != null)
+			return 0;
+		Word word = createWord(input);
+		if(requiresSyntheticTypeSchema(word.getGraphemic()))
+			createTypeSchemaFromGraphemic(word.getGraphemic());
+		materializedWordIds.add(word.getId());
+		return 1;
+	}
+
+	/**
+	 * Freezes the indexes of words, reference potentials and schemata, so
+	 * that they can be read by other threads without locking. Entries that
+	 * are added afterwards are kept in overlays until the next freeze.
+	 * 
+	 * @return the number of frozen entries
+	 */
+	private int freezeIndexes() {
+		int discardedFeatures = schemaSymbols.compact();
+		if(LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Discarded "+discardedFeatures+" replaced conceptual features, "
+					+schemaSymbols.getPoolSize()+" remain in "+schemaSymbols.getSliceCount()+" distinct lists");
+		}
+		words.freeze();
+		conceptualSchemataByName.freeze();
+		lexicalEntriesByPosition.freeze();
+		return words.size()+conceptualSchemataByName.size()
+				+lexicalizedConceptualSchemataByWord.size()+lexicalEntriesByPosition.size();
 	}
 
-	private void addConceptualSchemataToTLS(IModel model) {
+	/**
+	 * @return the number of schemata added to three-level semantics
+	 */
+	private int addConceptualSchemataToTLS(IModel model) {
 		ITWM twm = (ITWM) model.getModule(ITWM.class);
 		twm.setConceptualSchemata(conceptualSchemata, conceptualSchemataByName);
 		LOGGER.info("Added "+conceptualSchemataByName.size()+" schemata to three-level semantics.");
+		return conceptualSchemataByName.size();
+	}
+	
+	/**
+	 * @return a number that changes whenever words and reference potentials
+	 * 	are replaced or discarded
+	 */
+	long getLexicalEntryGeneration() {
+		return lexicalEntryGeneration;
+	}
+	
+	@Override
+	public HeapFootprint getInitialHeapFootprint() {
+		return initialHeapFootprint;
+	}
+	
+	@Override
+	public HeapFootprint getHeapFootprint() {
+		HeapFootprint footprint = new HeapFootprint(System.currentTimeMillis(),
+				syntheticWordsAtRuntime.get(), syntheticSchemataAtRuntime.get());
+		long wordBytes = 0;
+		for(Word word: words.values()) {
+			wordBytes += HeapFootprint.HASH_ENTRY_BYTES+estimateBytes(word);
+		}
+		footprint.add("words", words.size(), wordBytes);
+		footprint.add("lexicalEntriesByPosition", lexicalEntriesByPosition.size(),
+				lexicalEntriesByPosition.estimateBytes());
+		footprint.add("conceptualSchemataByName", conceptualSchemataByName.size(),
+				conceptualSchemataByName.size()*(long)HeapFootprint.HASH_ENTRY_BYTES);
+		long schemaBytes = 0;
+		int schemaCount = 0;
+		for(ConceptualSchema schema: conceptualSchemata) {
+			schemaBytes += HeapFootprint.LINKED_LIST_NODE_BYTES+estimateBytes(schema);
+			schemaCount++;
+		}
+		footprint.add("conceptualSchemata", schemaCount, schemaBytes);
+		footprint.add("schemaSymbols", schemaSymbols.size(), schemaSymbols.estimateBytes());
+		footprint.add("lexicalFeatureColumns", lexicalFeatureColumns.getRowCount(),
+				lexicalFeatureColumns.estimateBytes());
+		footprint.add("lexicalizedConceptualSchemataByWord", lexicalizedConceptualSchemataByWord.size(),
+				lexicalizedConceptualSchemataByWord.estimateBytes());
+		if(decodedWords != null) {
+			long decodedWordBytes = 0;
+			int decodedWordCount;
+			synchronized(decodedWords) {
+				decodedWordCount = decodedWords.size();
+				for(Word word: decodedWords.values()) {
+					decodedWordBytes += HeapFootprint.HASH_ENTRY_BYTES+2*HeapFootprint.REFERENCE_BYTES
+							+estimateBytes(word);
+				}
+			}
+			footprint.add("decodedWords", decodedWordCount, decodedWordBytes);
+		}
+		long griddedWords = 0;
+		for(GazeGridIndex gazeGrid: gazeGridsByPage.values()) {
+			griddedWords += gazeGrid.size();
+		}
+		footprint.add("gazeGridsByPage", griddedWords, griddedWords*(HeapFootprint.estimateObject(2, 20)
+				+HeapFootprint.HASH_ENTRY_BYTES+2*HeapFootprint.REFERENCE_BYTES));
+		if(frequencyLexicon != null) {
+			footprint.add("frequencyLexicon", frequencyLexicon.size(), frequencyLexicon.estimateBytes());
+		}
+		if(encounteredWords != null) {
+			footprint.add("encounteredWords", encounteredWords.getTotal(), encounteredWords.estimateBytes());
+		}
+		if(traceBuffer != null) {
+			footprint.add("traceBuffer", traceBuffer.size(), traceBuffer.estimateBytes());
+		}
+		int bufferedEntries = (lookAhead == null?0:1)+entriesAhead.size();
+		footprint.add("eventBuffer", bufferedEntries,
+				bufferedEntries*(HeapFootprint.estimateObject(8, 40)+HeapFootprint.LINKED_LIST_NODE_BYTES));
+		footprint.add("loadedEntries", loadedEntries.size(),
+				loadedEntries.size()*(HeapFootprint.HASH_ENTRY_BYTES+HeapFootprint.estimateObject(6, 8)));
+		footprint.add("referencesOfReferencePotentials", referencedIdsByReferencePotentialId.size(),
+				referencedIdsByReferencePotentialId.size()*(3L*HeapFootprint.HASH_ENTRY_BYTES
+						+HeapFootprint.estimateArray(3, HeapFootprint.REFERENCE_BYTES)));
+		footprint.add("chunksInDM", chunksInDM.size(), chunksInDM.size()*(long)HeapFootprint.HASH_ENTRY_BYTES);
+		return footprint;
+	}
+	
+	/**
+	 * @return the estimated bytes of the given word, excluding its URI, which
+	 * 	is shared by all words in the same file
+	 */
+	private static long estimateBytes(Word word) {
+		return HeapFootprint.estimateObject(5, 0)+HeapFootprint.estimateObject(1, 12)
+				+HeapFootprint.estimateString(word.getId())+HeapFootprint.estimateString(word.getGraphemic());
+	}
+	
+	/**
+	 * @return the estimated bytes of the given schema and of its list of
+	 * 	conceptual features, excluding its ID and features that are
+	 * 	canonicalized in {@link #schemaSymbols} and lexical features
+	 */
+	private static long estimateBytes(ConceptualSchema schema) {
+		List<String> features = schema.getConceptualFeatures();
+		long featureBytes = features instanceof SchemaFeatureList?
+				HeapFootprint.estimateObject(2, 8):
+				HeapFootprint.estimateObject(1, 8)+HeapFootprint.estimateArray(features.size(), HeapFootprint.REFERENCE_BYTES);
+		return HeapFootprint.estimateObject(8, 16)+featureBytes;
+	}
+	
+	@Override
+	public StartupStatistics getStartupStatistics() {
+		return startupStatistics;
+	}
+	
+	@Override
+	public TraceBuffer getTraceBuffer() {
+		return traceBuffer;
+	}
+	
+	private void writeTrace() {
+		String pathToTrace = getParameter(PATH_TO_TRACE);
+		if(traceBuffer != null && !pathToTrace.isEmpty()) {
+			try(PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(pathToTrace)))) {
+				traceBuffer.dump(writer);
+			} catch (IOException e) {
+				LOGGER.error("Failed to write trace to "+pathToTrace+": "+e.getMessage(), e);
+			}
+		}
 	}
 	
 	/**
@@ -908,16 +1843,7 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 				lookAhead = loadNextLogEntry0();
 				boolean saccadeAhead = lookAhead instanceof Saccade;
 				boolean fixationAhead = lookAhead instanceof Fixation;
-				keepLookingAhead = lookAhead != null
-						&& ((nextEntry instanceof Saccade && saccadeAhead)
-							 || (nextEntry instanceof Fixation
-								 && fixationAhead
-								 && ((Fixation)nextEntry).getFoveatedWord().equals(((Fixation)lookAhead).getFoveatedWord())
-								 && ((((Fixation)nextEntry).getRegressionInfo() == null && ((Fixation)lookAhead).getRegressionInfo() == null)
-										 || (((Fixation)nextEntry).getRegressionInfo() != null
-										 		&& ((Fixation)lookAhead).getRegressionInfo() != null
-										 		&& ((Fixation)nextEntry).getRegressionInfo().equals(((Fixation)lookAhead).getRegressionInfo()))) 
-								 && ((Fixation)nextEntry).getParafoveatedWords().equals(((Fixation)lookAhead).getParafoveatedWords())));
+				keepLookingAhead = LogEntryBuffer.isMergeable(nextEntry, lookAhead);
 				if(keepLookingAhead) {
 					// Note: Because regression path durations in the original analysis were
 					// computed as sums of fixation durations, combined saccades and fixations
@@ -953,11 +1879,45 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 		}
 	}
 	
+	/**
+	 * Whether the given number of log entries can be obtained from
+	 * {@link #loadNextLogEntry()} without reading from the events file, i.e.
+	 * whether they and the entries needed to decide on merging them have
+	 * already been read ahead.
+	 * 
+	 * @see REMMAParticipant#READ_AHEAD_FIXATIONS
+	 */
+	boolean areLogEntriesBuffered(int count) {
+		return entriesAhead.areBuffered(lookAhead, count);
+	}
+	
 	protected LogEntry loadNextLogEntry0() throws IOException {
-		String line = eventsReader.readLine();
-		if(line == null) {
-			return null;
-		} else {
+		// The buffer reads only when it is empty: areLogEntriesBuffered(int) is
+		// false then and the request delegate has synchronized the model clock
+		return entriesAhead.poll();
+	}
+	
+	private void prepareChunks(Fixation fixation) {
+		if(chunkPrematerializer != null) {
+			// Prepare chunks while earlier fixations are processed
+			chunkPrematerializer.prepare(fixation);
+		}
+	}
+	
+	/**
+	 * Returns the chunk that has been prepared for the given word of an
+	 * upcoming fixation, without waiting for preparations in progress.
+	 * 
+	 * @return null, if no prepared chunk is available
+	 * @see REMMAParticipant#PREMATERIALIZED_FIXATIONS
+	 */
+	ChunkPrematerializer.PreparedChunk takePreparedChunk(Fixation.Word word) {
+		return chunkPrematerializer == null?null:chunkPrematerializer.take(word);
+	}
+	
+	private LogEntry readLogEntry() throws IOException {
+		String line;
+		while((line = eventsReader.readLine()) != null) {
 			JSONTokener tokener = new JSONTokener(line);
 			JSONArray array = (JSONArray)tokener.nextValue();
 			String type = array.getString(0);
@@ -965,10 +1925,31 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 				return loadSaccade(array);
 			} else if(type.equals("FIX")) {
 				return loadFixation(array);
+			} else if(type.equals("WORD")) {
+				loadWordLayout(array);
 			} else {
 				throw new IllegalStateException("Unknown event type: "+type);
 			}
 		}
+		return null;
+	}
+	
+	/**
+	 * Adds a word that is displayed on a page to the gaze grid of the page,
+	 * without a fixation on it. The array has the form
+	 * <code>["WORD", pageId, word]</code> where word has the same form as
+	 * the words in fixations.
+	 */
+	void loadWordLayout(JSONArray array) {
+		if(array.length() != 3)
+			throw new IllegalStateException("Unexpected length of word layout array: "+array.length()+" expected 3");
+		getGazeGrid(array.getString(1)).add(getWord(array.getJSONArray(2)));
+	}
+	
+	private GazeGridIndex getGazeGrid(String pageId) {
+		return gazeGridsByPage.computeIfAbsent(pageId,
+				id -> new GazeGridIndex(gazeGridCellSizePx, characterWidthPx, horizontalResolutionPxPerMM,
+						verticalResolutionPxPerMM, distanceToScreenMM));
 	}
 	
 	Saccade loadSaccade(JSONArray array) {
@@ -978,13 +1959,36 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 				getStringOrNull(array.get(4)),  array.getInt(5), array.getLong(6), array.getLong(7));
 	}
 	
-	Fixation loadFixation(JSONArray array) {
+	/**
+	 * @return the fixation or, if no word is available in the foveal radius of
+	 * 	a fixation without recorded words, a saccade of the same duration that
+	 * 	is merged with the surrounding saccades
+	 * @see #loadNextLogEntry()
+	 */
+	LogEntry loadFixation(JSONArray array) {
 		if(array.length() != 12)
 			throw new IllegalStateException("Unexpected length of fixation array: "+array.length()+" expected 12");
 		RegressionInfo regressionInfo = getRegressionInfo(array.getJSONArray(10));
 		JSONArray wordsArray = array.getJSONArray(11);
-		Fixation.Word foveatedWord = getFoveatedWord(wordsArray);
-		Set<Fixation.Word> parafoveatedWords = getParafoveatedWords(wordsArray);
+		Fixation.Word foveatedWord;
+		Set<Fixation.Word> parafoveatedWords;
+		if(parafovealRadiusDegrees < 0) {
+			foveatedWord = getFoveatedWord(wordsArray);
+			parafoveatedWords = getParafoveatedWords(wordsArray);
+		} else {
+			GazeGridIndex gazeGrid = getGazeGrid(array.getString(3));
+			int porX = array.getInt(8), porY = array.getInt(9);
+			foveatedWord = getFoveatedWord(wordsArray, gazeGrid, porX, porY);
+			if(foveatedWord == null) {
+				// E.g. a fixation on whitespace
+				LOGGER.warn("No word within "+fovealRadiusDegrees+" degrees of fixation "
+						+array.getInt(5)+" at "+porX+","+porY+" on page "+array.getString(3)
+						+", treating it as part of a saccade");
+				return new Saccade(array.getString(1), array.getInt(2), array.getString(3),
+						getStringOrNull(array.get(4)), array.getInt(5), array.getLong(6), array.getLong(7));
+			}
+			parafoveatedWords = getParafoveatedWords(foveatedWord, gazeGrid, porX, porY);
+		}
 		return new Fixation(array.getString(1), array.getInt(2), array.getString(3),
 				getStringOrNull(array.get(4)),
 				array.getInt(5), array.getLong(6), array.getLong(7),
@@ -992,6 +1996,37 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 				regressionInfo, foveatedWord, parafoveatedWords);
 	}
 	
+	/**
+	 * Adds the recorded words to the given gaze grid and returns the recorded
+	 * foveated word or, if none has been recorded, the closest word in the
+	 * gaze grid within the foveal radius.
+	 * 
+	 * @return the foveated word, or null, if there is none
+	 * @see REMMAParticipant#FOVEAL_RADIUS_DEGREES
+	 */
+	private Fixation.Word getFoveatedWord(JSONArray words, GazeGridIndex gazeGrid, int porX, int porY) {
+		for(int i=0;i<words.length();i++) {
+			gazeGrid.add(getWord(words.getJSONArray(i)));
+		}
+		if(words.length() > 0) {
+			return getFoveatedWord(words);
+		}
+		return gazeGrid.getClosestWordWithin(porX, porY, fovealRadiusDegrees);
+	}
+	
+	/**
+	 * @return the words in the given gaze grid within the parafoveal radius,
+	 * 	except for the foveated word
+	 * @see REMMAParticipant#PARAFOVEAL_RADIUS_DEGREES
+	 */
+	private Set<Fixation.Word> getParafoveatedWords(Fixation.Word foveatedWord, GazeGridIndex gazeGrid,
+			int porX, int porY) {
+		Set<Fixation.Word> parafoveatedWords = new HashSet<Fixation.Word>(
+				gazeGrid.getWordsWithin(porX, porY, parafovealRadiusDegrees));
+		parafoveatedWords.remove(foveatedWord);
+		return parafoveatedWords;
+	}
+	
 	private String getStringOrNull(Object value) {
 		return value == JSONObject.NULL?null:(String)value;
 	}
@@ -1064,11 +2099,44 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 
 	@Override
 	public double getFrequency(Fixation.Word word) {
-		// TODO: Might actually use an approximation based on previous retrievals?
-		// After collecting the first 100 retrievals? Currently the frequency for
-		// referential words is implicitly reflected in the retrieval time of
-		// re-activated referents.
-		return defaultWordFrequency;
+		// Currently the frequency for referential words is implicitly reflected
+		// in the retrieval time of re-activated referents.
+		double priorFrequency = frequencyLexicon == null?defaultWordFrequency
+				:frequencyLexicon.getFrequency(word.getWord(), defaultWordFrequency);
+		if(encounteredWords == null)
+			return priorFrequency;
+		// The prior counts as frequencyPriorWeight encounters
+		return (encounteredWords.estimate(word.getWord())+frequencyPriorWeight*priorFrequency)
+				/(encounteredWords.getTotal()+frequencyPriorWeight);
+	}
+	
+	@Override
+	public double getNegativeLogFrequency(Fixation.Word word) {
+		if(encounteredWords != null)
+			return -Math.log(getFrequency(word));
+		if(frequencyLexicon == null)
+			return negativeLogDefaultWordFrequency;
+		return frequencyLexicon.getNegativeLogFrequency(word.getWord(), negativeLogDefaultWordFrequency);
+	}
+	
+	/**
+	 * @return true, if frequencies are estimated from encoded words and hence
+	 * 	change whenever a word is encoded
+	 * @see REMMAParticipant#ADAPTIVE_FREQUENCIES
+	 */
+	boolean hasAdaptiveFrequencies() {
+		return encounteredWords != null;
+	}
+	
+	/**
+	 * Counts the given word as encoded, if frequencies are estimated from
+	 * encoded words.
+	 * 
+	 * @see REMMAParticipant#ADAPTIVE_FREQUENCIES
+	 */
+	void countEncodedWord(Fixation.Word word) {
+		if(encounteredWords != null)
+			encounteredWords.add(word.getWord());
 	}
 
 	@Override
@@ -1173,13 +2241,42 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 
 	@Override
 	public void reset() {
+		if(chunkPrematerializer != null) {
+			// Before clearing the words that are read by the helper thread
+			chunkPrematerializer.clear();
+		}
 		nextUniqueFeatureId = 0;
 		words.clear();
-		wordsByUriAndLine.clear();
-		referencePotentialsByUriAndLine.clear();
+		lexicalEntriesByPosition.clear();
 		conceptualSchemataByName.clear();
 		conceptualSchemata.clear();
+		schemaSymbols.clear();
+		lexicalFeatureColumns.clear();
+		lexicalFeatureRowsBySymbol.clear();
+		loadedEntries.clear();
+		retiredReferencePotentialIds.clear();
+		referencePotentialIdsByReferencedId.clear();
+		referencedIdsByReferencePotentialId.clear();
+		twmRegistrations.clear();
+		chunksInDM.clear();
+		lexicalEntryGeneration++;
+		syntheticWordsAtRuntime.set(0);
+		syntheticSchemataAtRuntime.set(0);
+		initialHeapFootprint = null;
+		initialized = false;
+		loadingReferenceChecker = null;
 		lexicalizedConceptualSchemataByWord.clear();
+		materializedWordIds.clear();
+		syntheticSchemaFeaturesNotInDM.clear();
+		gazeGridsByPage.clear();
+		closeAstIndex();
+		entriesAhead.clear();
+		if(encounteredWords != null && !keepFrequenciesOnReset) {
+			encounteredWords.clear();
+		}
+		if(remmaBuffer != null && remmaBuffer.getRequestDelegate() != null) {
+			remmaBuffer.getRequestDelegate().clearEncodingDurations();
+		}
 		try {
 			eventsReader.close();
 			eventsReader = createEventsReader();
@@ -1196,8 +2293,16 @@ public class REMMAModule extends AbstractPerceptualModule implements IREMMA {
 	@Override
 	public void dispose() {
 		super.dispose();
+		if(chunkPrematerializer != null) {
+			// Before closing the AST index that is read by the helper thread
+			chunkPrematerializer.shutdown();
+			chunkPrematerializer = null;
+		}
+		closeAstIndex();
+		writeTrace();
 		try {
 			lookAhead = null;
+			entriesAhead.clear();
 			eventsReader.close();
 			eventsReader = null;
 		} catch (IOException e) {
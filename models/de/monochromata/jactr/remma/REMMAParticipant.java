@@ -30,6 +30,35 @@ public class REMMAParticipant extends BasicASTParticipant {
 	public static final String PATH_TO_JSON = "pathToJSON";
 	public static final String DEFAULT_PATH_TO_JSON = "ast.json";
 	
+	public static final String USE_AST_INDEX = "useASTIndex";
+	public static final boolean DEFAULT_USE_AST_INDEX = false;
+	public static final String DECODED_WORD_CACHE_SIZE = "decodedWordCacheSize";
+	public static final int DEFAULT_DECODED_WORD_CACHE_SIZE = 10000;
+	public static final String CHECK_REFERENCES_WHILE_LOADING = "checkReferencesWhileLoading";
+	public static final boolean DEFAULT_CHECK_REFERENCES_WHILE_LOADING = false;
+	public static final String RESOLVE_BY_COLUMN_SPAN = "resolveByColumnSpan";
+	public static final boolean DEFAULT_RESOLVE_BY_COLUMN_SPAN = true;
+	public static final String COMPACT_SCHEMA_STORE = "compactSchemaStore";
+	public static final boolean DEFAULT_COMPACT_SCHEMA_STORE = true;
+	public static final String MATERIALIZE_SYNTHETIC_SCHEMATA = "materializeSyntheticSchemata";
+	public static final boolean DEFAULT_MATERIALIZE_SYNTHETIC_SCHEMATA = false;
+	public static final String READ_AHEAD_FIXATIONS = "readAheadFixations";
+	public static final int DEFAULT_READ_AHEAD_FIXATIONS = 0;
+	public static final String PREMATERIALIZED_FIXATIONS = "prematerializedFixations";
+	public static final int DEFAULT_PREMATERIALIZED_FIXATIONS = 0;
+	/**
+	 * The number of trace events retained, or 0 to disable tracing
+	 * @see TraceBuffer
+	 */
+	public static final String TRACE_BUFFER_SIZE = "traceBufferSize";
+	public static final int DEFAULT_TRACE_BUFFER_SIZE = 0;
+	/**
+	 * A file the trace is written to when the module is disposed, or an
+	 * empty string to not write the trace
+	 */
+	public static final String PATH_TO_TRACE = "pathToTrace";
+	public static final String DEFAULT_PATH_TO_TRACE = "";
+	
 	public static final String FEATURE_THAT_MARKS_METHOD_SCHEMATA = "featureThatMarksMethodSchemata";
 	public static final String DEFAULT_FEATURE_THAT_MARKS_METHOD_SCHEMATA = "featuresOf:CS#Java$MethodDeclaration";
 	
@@ -39,6 +68,28 @@ public class REMMAParticipant extends BasicASTParticipant {
 	public static final double DEFAULT_ENCODING_EXPONENT_FACTOR = 0.4;
 	public static final String DEFAULT_FREQUENCY = "defaultFrequency";
 	public static final double DEFAULT_DEFAULT_FREQUENCY = 0.01;
+	/**
+	 * A file with one word and its relative frequency per line, or an empty
+	 * string to use the default frequency for all words
+	 * @see FrequencyLexicon#load(java.io.File)
+	 */
+	public static final String PATH_TO_FREQUENCIES = "pathToFrequencies";
+	public static final String DEFAULT_PATH_TO_FREQUENCIES = "";
+	/**
+	 * Whether frequencies are estimated from the words encoded while the
+	 * model is running, using the default or lexicon frequency as prior
+	 */
+	public static final String ADAPTIVE_FREQUENCIES = "adaptiveFrequencies";
+	public static final boolean DEFAULT_ADAPTIVE_FREQUENCIES = false;
+	/**
+	 * The number of encoded words that weigh as much as the prior frequency
+	 */
+	public static final String FREQUENCY_PRIOR_WEIGHT = "frequencyPriorWeight";
+	public static final double DEFAULT_FREQUENCY_PRIOR_WEIGHT = 100;
+	public static final String FREQUENCY_SKETCH_WIDTH = "frequencySketchWidth";
+	public static final int DEFAULT_FREQUENCY_SKETCH_WIDTH = 16384;
+	public static final String KEEP_FREQUENCIES_ON_RESET = "keepFrequenciesOnReset";
+	public static final boolean DEFAULT_KEEP_FREQUENCIES_ON_RESET = false;
 	public static final String SCREEN_WIDTH_MM = "screenWidthMM";
 	public static final double DEFAULT_SCREEN_WIDTH_MM = 379;
 	public static final String SCREEN_WIDTH_PX = "screenWidthPx";
@@ -50,6 +101,20 @@ public class REMMAParticipant extends BasicASTParticipant {
 	public static final String DISTANCE_TO_SCREEN_MM = "distanceToScreenMM";
 	public static final double DEFAULT_DISTANCE_TO_SCREEN_MM = 600;
 	
+	public static final String PARAFOVEAL_RADIUS_DEGREES = "parafovealRadiusDegrees";
+	public static final double DEFAULT_PARAFOVEAL_RADIUS_DEGREES = -1;
+	public static final String FOVEAL_RADIUS_DEGREES = "fovealRadiusDegrees";
+	public static final double DEFAULT_FOVEAL_RADIUS_DEGREES = 1;
+	public static final String GAZE_GRID_CELL_SIZE_PX = "gazeGridCellSizePx";
+	public static final int DEFAULT_GAZE_GRID_CELL_SIZE_PX = 64;
+	/**
+	 * The width of a character of the monospaced font the code is displayed
+	 * in, used to compute the horizontal extent of words in the gaze grid
+	 * @see GazeGridIndex
+	 */
+	public static final String CHARACTER_WIDTH_PX = "characterWidthPx";
+	public static final double DEFAULT_CHARACTER_WIDTH_PX = 8;
+	
 	public static final String CANCELLABLE_PROGRAMMING_DURATION_S = "cancellableProgrammingDurationS";
 	public static final double DEFAULT_CANCELLABLE_PROGRAMMING_DURATION_S = 0.135;
 	public static final String NON_CANCELLABLE_PROGRAMMING_DURATION_S = "nonCancellableProgrammingDurationS";
@@ -73,16 +138,35 @@ public class REMMAParticipant extends BasicASTParticipant {
 		TreeMap<String, String> parameters = new TreeMap<String, String>();
 		parameters.put(PATH_TO_EVENTS, DEFAULT_PATH_TO_EVENTS);
 		parameters.put(PATH_TO_JSON, DEFAULT_PATH_TO_JSON);
+		parameters.put(USE_AST_INDEX, ""+DEFAULT_USE_AST_INDEX);
+		parameters.put(DECODED_WORD_CACHE_SIZE, ""+DEFAULT_DECODED_WORD_CACHE_SIZE);
+		parameters.put(CHECK_REFERENCES_WHILE_LOADING, ""+DEFAULT_CHECK_REFERENCES_WHILE_LOADING);
+		parameters.put(RESOLVE_BY_COLUMN_SPAN, ""+DEFAULT_RESOLVE_BY_COLUMN_SPAN);
+		parameters.put(COMPACT_SCHEMA_STORE, ""+DEFAULT_COMPACT_SCHEMA_STORE);
+		parameters.put(MATERIALIZE_SYNTHETIC_SCHEMATA, ""+DEFAULT_MATERIALIZE_SYNTHETIC_SCHEMATA);
+		parameters.put(READ_AHEAD_FIXATIONS, ""+DEFAULT_READ_AHEAD_FIXATIONS);
+		parameters.put(PREMATERIALIZED_FIXATIONS, ""+DEFAULT_PREMATERIALIZED_FIXATIONS);
+		parameters.put(TRACE_BUFFER_SIZE, ""+DEFAULT_TRACE_BUFFER_SIZE);
+		parameters.put(PATH_TO_TRACE, DEFAULT_PATH_TO_TRACE);
 		parameters.put(FEATURE_THAT_MARKS_METHOD_SCHEMATA, DEFAULT_FEATURE_THAT_MARKS_METHOD_SCHEMATA);
 		
 		parameters.put(ENCODING_FACTOR, ""+DEFAULT_ENCODING_FACTOR);
 		parameters.put(ENCODING_EXPONENT_FACTOR, ""+DEFAULT_ENCODING_EXPONENT_FACTOR);
 		parameters.put(DEFAULT_FREQUENCY, ""+DEFAULT_DEFAULT_FREQUENCY);
+		parameters.put(PATH_TO_FREQUENCIES, DEFAULT_PATH_TO_FREQUENCIES);
+		parameters.put(ADAPTIVE_FREQUENCIES, ""+DEFAULT_ADAPTIVE_FREQUENCIES);
+		parameters.put(FREQUENCY_PRIOR_WEIGHT, ""+DEFAULT_FREQUENCY_PRIOR_WEIGHT);
+		parameters.put(FREQUENCY_SKETCH_WIDTH, ""+DEFAULT_FREQUENCY_SKETCH_WIDTH);
+		parameters.put(KEEP_FREQUENCIES_ON_RESET, ""+DEFAULT_KEEP_FREQUENCIES_ON_RESET);
 		parameters.put(SCREEN_WIDTH_MM, ""+DEFAULT_SCREEN_WIDTH_MM);
 		parameters.put(SCREEN_WIDTH_PX, ""+DEFAULT_SCREEN_WIDTH_PX);
 		parameters.put(SCREEN_HEIGHT_MM, ""+DEFAULT_SCREEN_HEIGHT_MM);
 		parameters.put(SCREEN_HEIGHT_PX, ""+DEFAULT_SCREEN_HEIGHT_PX);
 		parameters.put(DISTANCE_TO_SCREEN_MM, ""+DEFAULT_DISTANCE_TO_SCREEN_MM);
+		parameters.put(PARAFOVEAL_RADIUS_DEGREES, ""+DEFAULT_PARAFOVEAL_RADIUS_DEGREES);
+		parameters.put(FOVEAL_RADIUS_DEGREES, ""+DEFAULT_FOVEAL_RADIUS_DEGREES);
+		parameters.put(GAZE_GRID_CELL_SIZE_PX, ""+DEFAULT_GAZE_GRID_CELL_SIZE_PX);
+		parameters.put(CHARACTER_WIDTH_PX, ""+DEFAULT_CHARACTER_WIDTH_PX);
 		
 		parameters.put(CANCELLABLE_PROGRAMMING_DURATION_S, ""+DEFAULT_CANCELLABLE_PROGRAMMING_DURATION_S);
 		parameters.put(NON_CANCELLABLE_PROGRAMMING_DURATION_S, ""+DEFAULT_NON_CANCELLABLE_PROGRAMMING_DURATION_S);
@@ -4,6 +4,8 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.ExecutionException;
@@ -53,6 +55,25 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 	private Fixation.Word foveatedWord = null;
 	private SortedSet<Fixation.Word> parafoveatedWords = null;
 	
+	/**
+	 * Encoding durations of words by the packed x and y coordinates of the
+	 * point they are encoded from, i.e. the current fovea and the forecast
+	 * fixation. The durations only depend on that point, the word and the
+	 * constant parameters of the module, unless frequencies are adaptive, in
+	 * which case durations are not memoized.
+	 */
+	private final LruCache<Long,Map<Fixation.Word,Double>> encodingDurationsByPoint = new LruCache<>(2);
+	
+	/**
+	 * The chunks of reference potentials and words that have been encoded,
+	 * by their IDs, so that fixating them again need not wait for declarative
+	 * memory. IDs are used as keys because words that are read from the AST
+	 * index may be decoded into new instances each time. Only accessed on
+	 * the model thread.
+	 */
+	private final Map<String,IChunk> chunksByLexicalEntryId = new HashMap<>();
+	private long chunkCacheGeneration = -1;
+	
 	public REMMARequestDelegate(REMMAModule module, REMMABuffer buffer) {
 		this.module = module;
 		this.buffer = buffer;
@@ -146,6 +167,7 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 				LOGGER.debug(message);
 			}
 			
+			module.countEncodedWord(nextWord.word);
 			module.fireEncodingWord(nextWord.word, chunk, encodingStart, encodingEnd);
 			// TODO: Maybe also fire when word has been encoded
 			ITimedEvent finish = new DelayedBufferInsertionTimedEvent(buffer,
@@ -174,10 +196,17 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 					nextWord.fixation.getRegressionInfo().getWord());
 		}
 		
-		// Try to get a matching reference potential
-		ReferencePotential refPot = module.getReferencePotential(nextWord.word.getUri(),
-				nextWord.word.getLine(), nextWord.word.getColumn());
-		if(refPot != null) {
+		// Try to get a matching reference potential or, alternatively, word.
+		// Only positive preparations are used: words created since the
+		// preparation do not invalidate it.
+		ChunkPrematerializer.PreparedChunk prepared = module.takePreparedChunk(nextWord.word);
+		de.monochromata.jactr.tls.Word match = prepared != null?prepared.getMatch():null;
+		if(match == null) {
+			match = module.getReferencePotentialOrWord(nextWord.word.getUri(),
+					nextWord.word.getLine(), nextWord.word.getColumn());
+		}
+		if(match instanceof ReferencePotential) {
+			ReferencePotential refPot = (ReferencePotential)match;
 			if(!refPot.getGraphemic().equals(nextWord.word.getWord())) {
 				LOGGER.warn("Word from ET ("+nextWord.word.getWord()+")"
 						+" does not match reference potential in REMMA module ("+refPot.getGraphemic()+")"
@@ -185,10 +214,11 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 			}
 			refPot.setAnaphorInfo(anaphorInfo);
 			try {
-				chunk = dm.getChunk(refPot.getId()).get();
+				chunk = getCachedChunk(dm, refPot, prepared);
 				if(chunk == null) {
 					chunk = twm.toChunk(refPot);
 					twm.addToDMAndEnsureNameIsUnique(dm, chunk);
+					chunksByLexicalEntryId.put(refPot.getId(), chunk);
 				} else {
 					try {
 						chunk.getWriteLock().lock();
@@ -203,10 +233,9 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 			}
 		}
 		
-		// Alternatively, try to get a matching word
+		// Alternatively, use the matching word
 		if(chunk == null) {
-			de.monochromata.jactr.tls.Word word = module.getWord(nextWord.word.getUri(),
-					nextWord.word.getLine(), nextWord.word.getColumn());
+			de.monochromata.jactr.tls.Word word = match instanceof ReferencePotential?null:match;
 			if(word != null) {
 				if(!word.getGraphemic().equals(nextWord.word.getWord())) {
 					LOGGER.warn("Word from ET ("+nextWord.word.getWord()+")"
@@ -215,10 +244,13 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 				}
 				word.setAnaphorInfo(anaphorInfo);
 				try {
-					chunk = dm.getChunk(word.getId()).get();
+					// A materialized word is encoded like a word created now
+					boolean materialized = module.ensureLexicalizedSchemaOfMaterializedWordIsInDM(word);
+					chunk = getCachedChunk(dm, word, prepared);
 					if(chunk == null) {
 						chunk = twm.toChunk(word);
 						twm.addToDMAndEnsureNameIsUnique(dm, chunk);
+						chunksByLexicalEntryId.put(word.getId(), chunk);
 					} else {
 						try {
 							chunk.getWriteLock().lock();
@@ -227,7 +259,9 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 							chunk.getWriteLock().unlock();
 						}
 					}
-					module.ensureLexicalizedSchemaNotTargetedByReferencePotentialIsInDM(word);
+					if(!materialized) {
+						module.ensureLexicalizedSchemaNotTargetedByReferencePotentialIsInDM(word);
+					}
 				} catch (InterruptedException | ExecutionException e) {
 					LOGGER.error("Failed to obtain chunk for "+nextWord.word+": "+e.getMessage(), e);
 				}
@@ -242,17 +276,69 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 			try {
 				chunk = twm.toChunk(word);
 				twm.addToDMAndEnsureNameIsUnique(dm, chunk);
+				chunksByLexicalEntryId.put(word.getId(), chunk);
 			} catch (InterruptedException | ExecutionException e) {
 				LOGGER.error("Failed to obtain chunk for "+nextWord.word+": "+e.getMessage(), e);
 			}
-			LOGGER.debug("Created "+chunk+" from "+nextWord.word.getWord()+"@"+nextWord.word.getUri()+":"+nextWord.word.getLine()+":"+nextWord.word.getColumn());
+			trace(TraceBuffer.Kind.CHUNK_CREATED, Double.NaN, Double.NaN, chunk);
+			if(LOGGER.isDebugEnabled())
+				LOGGER.debug("Created "+chunk+" from "+nextWord.word.getWord()+"@"+nextWord.word.getUri()+":"+nextWord.word.getLine()+":"+nextWord.word.getColumn());
 		} else {
-			LOGGER.debug("Encoded "+chunk+" from "+nextWord.word.getWord()+"@"+nextWord.word.getUri()+":"+nextWord.word.getLine()+":"+nextWord.word.getColumn());
+			trace(TraceBuffer.Kind.CHUNK_ENCODED, Double.NaN, Double.NaN, chunk);
+			if(LOGGER.isDebugEnabled())
+				LOGGER.debug("Encoded "+chunk+" from "+nextWord.word.getWord()+"@"+nextWord.word.getUri()+":"+nextWord.word.getLine()+":"+nextWord.word.getColumn());
 		}
 		
 		return chunk; 
 	}
 	
+	/**
+	 * Returns the chunk of the given reference potential or word from the
+	 * cache or, if it has not been cached or has been disposed, from the
+	 * given prepared chunk or declarative memory. The cache is discarded when
+	 * the module replaces or discards its words and reference potentials.
+	 * 
+	 * @param prepared the chunk prepared for the fixated word, or null
+	 * @return the chunk, or null, if it is not in declarative memory
+	 */
+	private IChunk getCachedChunk(IDeclarativeModule dm, de.monochromata.jactr.tls.Word lexicalEntry,
+			ChunkPrematerializer.PreparedChunk prepared)
+			throws InterruptedException, ExecutionException {
+		long generation = module.getLexicalEntryGeneration();
+		if(generation != chunkCacheGeneration) {
+			chunksByLexicalEntryId.clear();
+			chunkCacheGeneration = generation;
+		}
+		IChunk chunk = chunksByLexicalEntryId.get(lexicalEntry.getId());
+		if(chunk != null && !chunk.hasBeenDisposed())
+			return chunk;
+		if(prepared != null && prepared.getMatch() != null
+				&& prepared.getMatch().getId().equals(lexicalEntry.getId())) {
+			// Chunks may have been added since the preparation, hence only
+			// a prepared chunk, but not its absence, can be trusted
+			chunk = prepared.getChunk();
+			if(chunk != null && !chunk.hasBeenDisposed()) {
+				chunksByLexicalEntryId.put(lexicalEntry.getId(), chunk);
+				return chunk;
+			}
+		}
+		chunk = dm.getChunk(lexicalEntry.getId()).get();
+		if(chunk == null) {
+			chunksByLexicalEntryId.remove(lexicalEntry.getId());
+		} else {
+			chunksByLexicalEntryId.put(lexicalEntry.getId(), chunk);
+		}
+		return chunk;
+	}
+	
+	/**
+	 * Discards the memoized encoding durations, e.g. because the frequencies
+	 * they are based on have been reset.
+	 */
+	void clearEncodingDurations() {
+		encodingDurationsByPoint.clear();
+	}
+	
 	/**
 	 * Compute the encoding duration in seconds for encoding the given word
 	 * from the currently foveated position.
@@ -275,17 +361,52 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 	 * @return
 	 */
 	private double computeEncodingDurationS(int currentX, int currentY, Fixation.Word word) {
+		// Adaptive frequencies change with every encoded word, so durations
+		// based on them cannot be memoized
+		Map<Fixation.Word,Double> durations = module.hasAdaptiveFrequencies()?null
+				:encodingDurationsByPoint.computeIfAbsent(
+						((long)currentX<<32)|(currentY&0xffffffffL), point -> new HashMap<>());
+		Double cachedDuration = durations == null?null:durations.get(word);
+		if(cachedDuration != null) {
+			trace(TraceBuffer.Kind.ENCODING_DURATION, Double.NaN, cachedDuration, 1, word);
+			return cachedDuration;
+		}
 		double distance = getDistanceInDegreesOfVisualAngle(currentX, currentY, word);
 		double duration = module.getEncodingFactor()
-				* ( - Math.log(module.getFrequency(word)) )
+				* module.getNegativeLogFrequency(word)
 				* Math.exp(module.getEncodingExponentFactor()
 						* distance);
-		LOGGER.debug("Enc "+duration+"s: "+word.getWord()
-				+" @ "+word.getAbsoluteCenterX()+","+word.getAbsoluteCenterY()
-				+" vs. "+foveaX+","+foveaY+" ("+distance+")");
+		if(durations != null)
+			durations.put(word, duration);
+		trace(TraceBuffer.Kind.ENCODING_DURATION, Double.NaN, duration, 0, word);
+		if(LOGGER.isDebugEnabled())
+			LOGGER.debug("Enc "+duration+"s: "+word.getWord()
+					+" @ "+word.getAbsoluteCenterX()+","+word.getAbsoluteCenterY()
+					+" vs. "+foveaX+","+foveaY+" ("+distance+")");
 		return duration;
 	}
 	
+	/**
+	 * Records an event, if tracing is enabled.
+	 * 
+	 * @see TraceBuffer
+	 */
+	private void trace(TraceBuffer.Kind kind, double time, double value, Object subject) {
+		trace(kind, time, value, 0, subject);
+	}
+	
+	private void trace(TraceBuffer.Kind kind, double time, double value, int detail, Object subject) {
+		TraceBuffer traceBuffer = module.getTraceBuffer();
+		if(traceBuffer != null)
+			traceBuffer.add(kind, time, value, detail, subject);
+	}
+	
+	private void trace(TraceBuffer.Decision decision, double time, double value, Object subject) {
+		TraceBuffer traceBuffer = module.getTraceBuffer();
+		if(traceBuffer != null)
+			traceBuffer.add(decision, time, value, subject);
+	}
+	
 	private double getDistanceInDegreesOfVisualAngle(int x, int y, Fixation.Word word) {
 		return getDistanceInDegreesOfVisualAngle(x, y, word.getAbsoluteCenterX(), word.getAbsoluteCenterY());
 	}
@@ -337,8 +458,10 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 			// (c) encoding from parafoveal preview faster than after next saccade
 			WordResult returnValue = null;
 			if(nextWord == null) {
+				trace(TraceBuffer.Decision.NO_WORD_AVAILABLE, requestStartS, Double.NaN, null);
 				returnValue = performNextSaccadeAndGetNextWord(requestStartS);
 			} else {
+				trace(TraceBuffer.Kind.WORD_CHOSEN, requestStartS, Double.NaN, nextWord);
 				double nextWordEncodingDuration = computeEncodingDurationS(nextWord);
 				
 				// TODO: (Otherwise) start new preparation? Will need to figure out
@@ -360,19 +483,24 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 						if(durationWithRefixationAndReEncoding < nextWordEncodingDuration) {
 							// The refixation speeds up the encoding of the currently fixated word: perform
 							// the refixation.
+							trace(TraceBuffer.Decision.REFIXATION, requestStartS, durationWithRefixationAndReEncoding, nextWord);
 							returnValue = performNextSaccadeAndGetNextWord(requestStartS, durationWithRefixationAndReEncoding);
 						} else {
 							// The refixation is still too far away (ahead of time) to speed up the encoding of the currently available word.
+							trace(TraceBuffer.Decision.ENCODE_BEFORE_REFIXATION, requestStartS, nextWordEncodingDuration, nextWord);
 							returnValue = new NextWord(nextWordEncodingDuration, forecastFixation.fixation, nextWord);
 						}
 					} else {
 						if((forecastFixation.durationToFixation+forecastDuration) < nextWordEncodingDuration) {
 							// Encoding the foveated word from the next fixation will be faster than
 							// encoding from parafoveal preview: perform the next saccade.
+							trace(TraceBuffer.Decision.NEXT_SACCADE, requestStartS,
+									forecastFixation.durationToFixation+forecastDuration, forecastFixation.fixation);
 							returnValue = performNextSaccadeAndGetNextWord(requestStartS);
 						} else {
 							// The next fixation is still too far away: encoding the currently available word
 							// will be faster.
+							trace(TraceBuffer.Decision.ENCODE_AVAILABLE_WORD, requestStartS, nextWordEncodingDuration, nextWord);
 							returnValue = new NextWord(nextWordEncodingDuration, lastRecordedFixation, nextWord);
 						}
 					}
@@ -388,7 +516,8 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 		protected WordResult performNextSaccadeAndGetNextWord(double requestStart) {
 			return performNextSaccadeAndGetNextWord(requestStart, (secondsToSaccadeCompletion, nextWord) -> {
 				double encodingDuration = computeEncodingDurationS(nextWord);
-				LOGGER.debug("sec to sacc. completion: "+secondsToSaccadeCompletion+", "+encodingDuration);
+				if(LOGGER.isDebugEnabled())
+					LOGGER.debug("sec to sacc. completion: "+secondsToSaccadeCompletion+", "+encodingDuration);
 				return secondsToSaccadeCompletion + encodingDuration;
 				});
 		}
@@ -425,7 +554,9 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 		public void startNewPreparation(double requestStart) {
 			// Restart preparation
 			preparationStart = requestStart;
-			LOGGER.debug("Resetting REMMA preparation at "+requestStart);
+			trace(TraceBuffer.Kind.PREPARATION_RESET, requestStart, Double.NaN, null);
+			if(LOGGER.isDebugEnabled())
+				LOGGER.debug("Resetting REMMA preparation at "+requestStart);
 		}
 
 		public FixationResult forecastNextFixation(double requestStart) {
@@ -485,6 +616,17 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 			this.forecastFixationFollowsImmediately = fixationFollowsImmediately;
 		}
 		
+		/**
+		 * Whether the next saccade-fixation-pair needs to be read from the
+		 * events file. Otherwise, it has been forecast already or has been
+		 * read ahead, so the model clock need not be synchronized.
+		 */
+		protected boolean requiresReading() {
+			if(forecastSaccade != null || forecastFixation != null)
+				return false;
+			return !module.areLogEntriesBuffered(forecastFixationFollowsImmediately?1:2);
+		}
+		
 		protected double getDurationToFixation(double preparationDurationS, Saccade forecastSaccade) {
 			// If there is no saccade, only preparation duration will contribute
 			return preparationDurationS+nonCancellableProgrammingDurationS
@@ -494,7 +636,7 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 		@Override
 		public FixationResult forecastNextFixation(double requestStartS,
 				double forecastDurationS) {
-			BlockingTimedEvent bte = module.synchronizedTimedEvent(requestStartS, requestStartS);
+			BlockingTimedEvent bte = requiresReading()?module.synchronizedTimedEvent(requestStartS, requestStartS):null;
 			FixationResult result = null;
 			try {
 				// Try to load the next saccade-fixation-pair
@@ -528,14 +670,15 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 				LOGGER.error("Failed to forecast next fixation: "+e.getMessage(), e);
 				result = new InternalError();
 			} finally {
-				bte.abort();
+				if(bte != null)
+					bte.abort();
 			}
 			return result;
 		}
 		
 		@Override
 		public FixationResult getNextFixation(double requestStartS, double preparationDuration) {
-			BlockingTimedEvent bte = module.synchronizedTimedEvent(requestStartS, requestStartS);
+			BlockingTimedEvent bte = requiresReading()?module.synchronizedTimedEvent(requestStartS, requestStartS):null;
 			FixationResult result = null;
 			try {
 				if(forecastSaccade == null && forecastFixation == null)
@@ -551,7 +694,8 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 				LOGGER.error("Failed to read next log entry: "+e.getMessage(), e);
 				result = new InternalError();*/
 			} finally {
-				bte.abort();
+				if(bte != null)
+					bte.abort();
 			}
 			return result;
 		}
@@ -582,6 +726,7 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 			if(fixation == null) {
 				// End of data reached
 				LOGGER.debug("End of data reached");
+				trace(TraceBuffer.Kind.END_OF_DATA, requestStartS, Double.NaN, null);
 				executionState = new ExecutionTerminated();
 				return new EndOfData();
 			} else {
@@ -637,6 +782,7 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 			foveatedWord = recordedFixation.getFoveatedWord();
 			parafoveatedWords = new TreeSet<Fixation.Word>(new LeftToRight());
 			parafoveatedWords.addAll(recordedFixation.getParafoveatedWords());
+			trace(TraceBuffer.Kind.FIXATION_STARTED, fixationStartS, Double.NaN, recordedFixation);
 			module.fireFixationStarted(recordedFixation, fixationStartS);
 		}
 		
@@ -669,6 +815,7 @@ public class REMMARequestDelegate extends AsynchronousRequestDelegate {
 		}*/
 		
 		protected void finishAndLogCurrentFixation(double end) {
+			trace(TraceBuffer.Kind.FIXATION_FINISHED, end, lastGeneratedFixationStart, lastRecordedFixation);
 			module.fireFixationFinished(lastRecordedFixation,
 					lastGeneratedFixationStart, end);
 			lastRecordedFixation = null;
@@ -0,0 +1,177 @@
+package de.monochromata.jactr.remma;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of checking the references of conceptual schemata and reference
+ * potentials. Violations are aggregated per kind and missing target, so
+ * that a target that is referenced many times is reported once, with the
+ * number of references to it and the first referrer.
+ */
+public class ReferenceCheckReport {
+
+	/**
+	 * The number of violations that are included in exception messages
+	 */
+	private static final int MAX_VIOLATIONS_IN_MESSAGE = 20;
+
+	public enum Kind {
+		MISSING_FEATURES_OF_SOURCE("Schema %s cannot import features from missing schema %s"),
+		MISSING_FEATURE("Schema %s refers to missing conceptual feature %s"),
+		MISSING_SCHEMA("Reference potential %s refers to missing schema=%s"),
+		MISSING_DECLARATION("Reference potential %s refers to missing declaration=%s"),
+		MISSING_ROLE("Reference potential %s refers to missing role=%s"),
+		MISSING_RETURN("Reference potential %s refers to missing return=%s"),
+		MISSING_ROLE_IN("Reference potential %s refers to missing reference potential=%s");
+
+		private final String format;
+
+		private Kind(String format) {
+			this.format = format;
+		}
+	}
+
+	private final Map<Kind,Map<String,Violation>> violationsByKind = new EnumMap<>(Kind.class);
+	private final EnumMap<Kind,Integer> referenceCounts = new EnumMap<>(Kind.class);
+	private int checkedSchemata, checkedReferencePotentials;
+
+	/**
+	 * Records a reference from the given referrer to the given missing target.
+	 */
+	public void add(Kind kind, String referrerId, String targetId) {
+		add(kind, referrerId, targetId, 1);
+	}
+
+	/**
+	 * Records the given number of references to the given missing target, of
+	 * which the given referrer is the first.
+	 */
+	public void add(Kind kind, String firstReferrerId, String targetId, int count) {
+		Map<String,Violation> violations = violationsByKind.computeIfAbsent(kind, k -> new LinkedHashMap<>());
+		Violation violation = violations.get(targetId);
+		if(violation == null) {
+			violations.put(targetId, new Violation(kind, firstReferrerId, targetId, count));
+		} else {
+			violation.count += count;
+		}
+		referenceCounts.merge(kind, count, Integer::sum);
+	}
+
+	public void addChecked(int schemata, int referencePotentials) {
+		checkedSchemata += schemata;
+		checkedReferencePotentials += referencePotentials;
+	}
+
+	public int getCheckedSchemata() {
+		return checkedSchemata;
+	}
+
+	public int getCheckedReferencePotentials() {
+		return checkedReferencePotentials;
+	}
+
+	/**
+	 * @return the violations, ordered by kind and then by first occurrence
+	 */
+	public List<Violation> getViolations() {
+		List<Violation> violations = new ArrayList<>();
+		for(Map<String,Violation> violationsOfKind: violationsByKind.values()) {
+			violations.addAll(violationsOfKind.values());
+		}
+		return Collections.unmodifiableList(violations);
+	}
+
+	/**
+	 * @return the number of references of the given kind to missing targets
+	 */
+	public int getReferenceCount(Kind kind) {
+		return referenceCounts.getOrDefault(kind, 0);
+	}
+
+	public boolean hasViolations() {
+		return !violationsByKind.isEmpty();
+	}
+
+	/**
+	 * @return a single line with the numbers of checked elements and of missing
+	 * 	targets and references to them per kind
+	 */
+	public String toSummary() {
+		int missingTargets = 0;
+		for(Map<String,Violation> violationsOfKind: violationsByKind.values()) {
+			missingTargets += violationsOfKind.size();
+		}
+		StringBuilder summary = new StringBuilder("Checked ")
+				.append(checkedSchemata).append(" schemata and ")
+				.append(checkedReferencePotentials).append(" reference potentials, ")
+				.append(missingTargets).append(" missing targets");
+		for(Map.Entry<Kind,Map<String,Violation>> entry: violationsByKind.entrySet()) {
+			summary.append(' ').append(entry.getKey()).append('=').append(entry.getValue().size())
+				.append(" (").append(getReferenceCount(entry.getKey())).append(" references)");
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * @throws IllegalStateException listing the violations, if there are any
+	 */
+	public void throwIfViolated() {
+		if(hasViolations()) {
+			StringBuilder message = new StringBuilder(toSummary());
+			int listed = 0;
+			for(Violation violation: getViolations()) {
+				if(listed++ == MAX_VIOLATIONS_IN_MESSAGE) {
+					message.append("\n...");
+					break;
+				}
+				message.append('\n').append(violation);
+			}
+			throw new IllegalStateException(message.toString());
+		}
+	}
+
+	/**
+	 * References of a kind to a single missing target.
+	 */
+	public static class Violation {
+
+		private final Kind kind;
+		private final String firstReferrerId;
+		private final String targetId;
+		private int count;
+
+		protected Violation(Kind kind, String firstReferrerId, String targetId, int count) {
+			this.kind = kind;
+			this.firstReferrerId = firstReferrerId;
+			this.targetId = targetId;
+			this.count = count;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		public String getFirstReferrerId() {
+			return firstReferrerId;
+		}
+
+		public String getTargetId() {
+			return targetId;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		@Override
+		public String toString() {
+			String message = String.format(kind.format, firstReferrerId, targetId);
+			return count == 1?message:message+" (and "+(count-1)+" more references)";
+		}
+	}
+}
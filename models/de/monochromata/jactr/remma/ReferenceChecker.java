@@ -0,0 +1,172 @@
+package de.monochromata.jactr.remma;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import de.monochromata.jactr.remma.ReferenceCheckReport.Kind;
+import de.monochromata.jactr.remma.ReferenceCheckReport.Violation;
+import de.monochromata.jactr.tls.ReferencePotential;
+
+/**
+ * Checks that the conceptual features of schemata and the attributes of
+ * reference potentials refer to defined schemata and reference potentials.
+ * <p>
+ * The references of snapshots of schemata and reference potentials can be
+ * checked in parallel via {@link #check(String[], int[][], ReferencePotential[], Set, SchemaSymbolTable)}.
+ * Alternatively, an instance can be fed with each schema and reference
+ * potential while they are loaded. It only retains references to targets
+ * that have not been defined yet and re-checks those in {@link #finish(Predicate)},
+ * so the loaded elements need not be traversed again.
+ */
+public class ReferenceChecker {
+
+	private final SchemaSymbolTable schemaSymbols;
+	private final Map<Kind,Map<String,PendingReference>> pendingReferences = new LinkedHashMap<>();
+	private int checkedSchemata, checkedReferencePotentials;
+
+	public ReferenceChecker(SchemaSymbolTable schemaSymbols) {
+		this.schemaSymbols = schemaSymbols;
+	}
+
+	/**
+	 * Checks the references of the given snapshots in parallel. The given
+	 * symbol table must not be modified during the check.
+	 *
+	 * @param schemaIds the IDs of the schemata to check
+	 * @param schemaFeatures the encoded conceptual features of the schemata to check
+	 * @param referencePotentials the reference potentials to check
+	 * @param missingReferencePotentialIds the roleIn attributes of the given
+	 * 	reference potentials that do not refer to existing reference potentials
+	 */
+	public static ReferenceCheckReport check(String[] schemaIds, int[][] schemaFeatures,
+			ReferencePotential[] referencePotentials, Set<String> missingReferencePotentialIds,
+			SchemaSymbolTable schemaSymbols) {
+		List<Violation> violations = IntStream.range(0, schemaIds.length).parallel()
+			.mapToObj(i -> checkSchema(schemaIds[i], schemaFeatures[i], schemaSymbols))
+			.flatMap(List::stream)
+			.collect(Collectors.toList());
+		violations.addAll(IntStream.range(0, referencePotentials.length).parallel()
+			.mapToObj(i -> checkReferencePotential(referencePotentials[i],
+					missingReferencePotentialIds::contains, schemaSymbols))
+			.flatMap(List::stream)
+			.collect(Collectors.toList()));
+		ReferenceCheckReport report = new ReferenceCheckReport();
+		report.addChecked(schemaIds.length, referencePotentials.length);
+		for(Violation violation: violations) {
+			report.add(violation.getKind(), violation.getFirstReferrerId(), violation.getTargetId());
+		}
+		return report;
+	}
+
+	private static List<Violation> checkSchema(String schemaId, int[] features,
+			SchemaSymbolTable schemaSymbols) {
+		List<Violation> violations = Collections.emptyList();
+		for(int feature: features) {
+			int symbol = SchemaSymbolTable.getSymbolOf(feature);
+			if(!schemaSymbols.isDefined(symbol)) {
+				if(violations.isEmpty())
+					violations = new ArrayList<>(1);
+				violations.add(new Violation(
+						SchemaSymbolTable.isFeaturesOf(feature)?Kind.MISSING_FEATURES_OF_SOURCE:Kind.MISSING_FEATURE,
+						schemaId, schemaSymbols.getId(symbol), 1));
+			}
+		}
+		return violations;
+	}
+
+	private static List<Violation> checkReferencePotential(ReferencePotential refPot,
+			Predicate<String> isMissingReferencePotential, SchemaSymbolTable schemaSymbols) {
+		List<Violation> violations = Collections.emptyList();
+		String[] schemaIds = { refPot.getSchema(), refPot.getDeclaredIn(), refPot.getRoleId(), refPot.getReturnId() };
+		Kind[] kinds = { Kind.MISSING_SCHEMA, Kind.MISSING_DECLARATION, Kind.MISSING_ROLE, Kind.MISSING_RETURN };
+		for(int i=0;i<schemaIds.length;i++) {
+			if(schemaIds[i] != null && !schemaSymbols.isDefined(schemaIds[i])) {
+				if(violations.isEmpty())
+					violations = new ArrayList<>(1);
+				violations.add(new Violation(kinds[i], refPot.getId(), schemaIds[i], 1));
+			}
+		}
+		String roleIn = refPot.getRoleIn();
+		if(roleIn != null && isMissingReferencePotential.test(roleIn)) {
+			if(violations.isEmpty())
+				violations = new ArrayList<>(1);
+			violations.add(new Violation(Kind.MISSING_ROLE_IN, refPot.getId(), roleIn, 1));
+		}
+		return violations;
+	}
+
+	/**
+	 * Checks the features of a schema that is being loaded.
+	 */
+	public void addSchema(String schemaId, int[] features) {
+		checkedSchemata++;
+		for(int feature: features) {
+			int symbol = SchemaSymbolTable.getSymbolOf(feature);
+			if(!schemaSymbols.isDefined(symbol)) {
+				addPending(SchemaSymbolTable.isFeaturesOf(feature)?Kind.MISSING_FEATURES_OF_SOURCE:Kind.MISSING_FEATURE,
+						schemaId, schemaSymbols.getId(symbol));
+			}
+		}
+	}
+
+	/**
+	 * Checks the attributes of a reference potential that is being loaded.
+	 * References to other reference potentials are always checked in
+	 * {@link #finish(Predicate)}, because reference potentials are registered
+	 * in bulk after loading.
+	 */
+	public void addReferencePotential(ReferencePotential refPot) {
+		checkedReferencePotentials++;
+		for(Violation violation: checkReferencePotential(refPot, roleIn -> true, schemaSymbols)) {
+			addPending(violation.getKind(), violation.getFirstReferrerId(), violation.getTargetId());
+		}
+	}
+
+	private void addPending(Kind kind, String referrerId, String targetId) {
+		PendingReference pending = pendingReferences
+				.computeIfAbsent(kind, k -> new LinkedHashMap<>())
+				.computeIfAbsent(targetId, id -> new PendingReference(referrerId));
+		pending.count++;
+	}
+
+	/**
+	 * Re-checks the references to targets that have not been defined while
+	 * loading.
+	 *
+	 * @param hasReferencePotential tests whether a reference potential with a given ID exists
+	 */
+	public ReferenceCheckReport finish(Predicate<String> hasReferencePotential) {
+		ReferenceCheckReport report = new ReferenceCheckReport();
+		report.addChecked(checkedSchemata, checkedReferencePotentials);
+		for(Map.Entry<Kind,Map<String,PendingReference>> entriesOfKind: pendingReferences.entrySet()) {
+			Kind kind = entriesOfKind.getKey();
+			for(Map.Entry<String,PendingReference> entry: entriesOfKind.getValue().entrySet()) {
+				String targetId = entry.getKey();
+				boolean exists = kind == Kind.MISSING_ROLE_IN?
+						hasReferencePotential.test(targetId):schemaSymbols.isDefined(targetId);
+				if(!exists) {
+					report.add(kind, entry.getValue().firstReferrerId, targetId, entry.getValue().count);
+				}
+			}
+		}
+		pendingReferences.clear();
+		return report;
+	}
+
+	private static class PendingReference {
+
+		private final String firstReferrerId;
+		private int count;
+
+		private PendingReference(String firstReferrerId) {
+			this.firstReferrerId = firstReferrerId;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package de.monochromata.jactr.remma;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * A list view of the current conceptual features of a schema in a
+ * {@link SchemaSymbolTable}, so that the features are stored only once, as
+ * a slice of the shared pool of the table, and decoded when they are read.
+ * <p>
+ * Modifications via the list modify the current features in the table. When
+ * the schema is overwritten by a later definition under the same ID or
+ * removed, the list needs to be {@link #detach() detached} to retain the
+ * features of the schema it belongs to.
+ */
+public class SchemaFeatureList extends AbstractList<String> {
+
+	private final SchemaSymbolTable schemaSymbols;
+	private final int symbol;
+	/**
+	 * The encoded features of a detached list, or null while the list is attached
+	 */
+	private int[] detachedFeatures;
+
+	public SchemaFeatureList(SchemaSymbolTable schemaSymbols, int symbol) {
+		this.schemaSymbols = schemaSymbols;
+		this.symbol = symbol;
+	}
+
+	public boolean isAttached() {
+		return detachedFeatures == null;
+	}
+
+	/**
+	 * Copies the current features from the symbol table, so that later
+	 * changes to the table do not affect this list.
+	 */
+	public void detach() {
+		if(isAttached()) {
+			int[] features = schemaSymbols.getFeatures(symbol);
+			detachedFeatures = features == null?new int[0]:features;
+		}
+	}
+
+	@Override
+	public String get(int index) {
+		if(isAttached()) {
+			return schemaSymbols.decode(schemaSymbols.getFeature(symbol, index));
+		} else {
+			if(index < 0 || index >= detachedFeatures.length)
+				throw new IndexOutOfBoundsException("Index: "+index+", Size: "+detachedFeatures.length);
+			return schemaSymbols.decode(detachedFeatures[index]);
+		}
+	}
+
+	@Override
+	public int size() {
+		return isAttached()?schemaSymbols.getFeatureCount(symbol):detachedFeatures.length;
+	}
+
+	@Override
+	public String set(int index, String feature) {
+		String oldFeature = get(index);
+		int[] features = getFeatures();
+		features[index] = schemaSymbols.encode(feature);
+		setFeatures(features);
+		return oldFeature;
+	}
+
+	@Override
+	public void add(int index, String feature) {
+		int[] features = getFeatures();
+		if(index < 0 || index > features.length)
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+features.length);
+		int[] newFeatures = new int[features.length+1];
+		System.arraycopy(features, 0, newFeatures, 0, index);
+		newFeatures[index] = schemaSymbols.encode(feature);
+		System.arraycopy(features, index, newFeatures, index+1, features.length-index);
+		setFeatures(newFeatures);
+		modCount++;
+	}
+
+	@Override
+	public String remove(int index) {
+		String oldFeature = get(index);
+		int[] features = getFeatures();
+		int[] newFeatures = new int[features.length-1];
+		System.arraycopy(features, 0, newFeatures, 0, index);
+		System.arraycopy(features, index+1, newFeatures, index, features.length-index-1);
+		setFeatures(newFeatures);
+		modCount++;
+		return oldFeature;
+	}
+
+	@Override
+	public void clear() {
+		setFeatures(new int[0]);
+		modCount++;
+	}
+
+	private int[] getFeatures() {
+		if(isAttached()) {
+			int[] features = schemaSymbols.getFeatures(symbol);
+			return features == null?new int[0]:features;
+		}
+		return Arrays.copyOf(detachedFeatures, detachedFeatures.length);
+	}
+
+	private void setFeatures(int[] features) {
+		if(isAttached()) {
+			schemaSymbols.setFeatures(symbol, features);
+		} else {
+			detachedFeatures = features;
+		}
+	}
+}
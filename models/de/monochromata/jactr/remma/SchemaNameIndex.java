@@ -0,0 +1,255 @@
+package de.monochromata.jactr.remma;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps graphemic representations to the IDs of the lexicalized conceptual
+ * schemata that have them.
+ * <p>
+ * Besides the lookup by graphemic representation, schemata can be looked up
+ * by simple or partially qualified names in a single traversal of a trie of
+ * the dotted segments of their qualified names, starting with the last
+ * segment. The qualified name of a schema is the part of its ID after the
+ * first #, e.g. {@code java.util.List} for {@code CS#java.util.List}. Array
+ * dimensions are ignored in the trie.
+ * <p>
+ * Adding and removing is done by a single thread, lookups can be performed
+ * by any thread without locking.
+ */
+public class SchemaNameIndex {
+
+	private final Map<String,Ids> idsByGraphemic = new ConcurrentHashMap<>();
+	private final Map<String,String> graphemicsById = new ConcurrentHashMap<>();
+	private final Node root = new Node();
+
+	/**
+	 * Adds the given schema ID for the given graphemic representation, unless
+	 * it has been added before.
+	 */
+	public void add(String graphemic, String schemaId) {
+		String previousGraphemic = graphemicsById.put(schemaId, graphemic);
+		if(graphemic.equals(previousGraphemic))
+			return;
+		Ids ids = idsByGraphemic.computeIfAbsent(graphemic, g -> new Ids());
+		if(previousGraphemic != null && ids.contains(schemaId))
+			return;
+		ids.add(schemaId);
+		if(previousGraphemic == null) {
+			Node node = root;
+			String[] segments = getSegments(getQualifiedName(schemaId));
+			for(int i=segments.length-1;i>=0;i--) {
+				node = node.children.computeIfAbsent(segments[i], segment -> new Node());
+			}
+			node.ids.add(schemaId);
+		}
+	}
+
+	/**
+	 * Removes the given schema ID from the given graphemic representation.
+	 */
+	public void remove(String graphemic, String schemaId) {
+		Ids ids = idsByGraphemic.get(graphemic);
+		if(ids == null || !ids.contains(schemaId))
+			return;
+		if(graphemicsById.remove(schemaId, graphemic)) {
+			removeFromTrie(getSegments(getQualifiedName(schemaId)), schemaId);
+		}
+		if(ids.size() == 1) {
+			idsByGraphemic.remove(graphemic);
+		} else {
+			idsByGraphemic.put(graphemic, ids.without(schemaId));
+		}
+	}
+
+	private void removeFromTrie(String[] segments, String schemaId) {
+		LinkedList<Node> path = new LinkedList<>();
+		Node node = root;
+		for(int i=segments.length-1;i>=0 && node != null;i--) {
+			path.addFirst(node);
+			node = node.children.get(segments[i]);
+		}
+		if(node == null)
+			return;
+		node.ids = node.ids.without(schemaId);
+		// Prune nodes that became empty, from the leaf towards the root
+		for(int i=0;i<segments.length && node.isEmpty();i++) {
+			path.get(i).children.remove(segments[i], node);
+			node = path.get(i);
+		}
+	}
+
+	/**
+	 * @return the IDs of the schemata with the given graphemic representation,
+	 * 	or null, if there are none
+	 */
+	public List<String> get(String graphemic) {
+		Ids ids = idsByGraphemic.get(graphemic);
+		return ids == null?null:ids.asList();
+	}
+
+	public boolean containsKey(String graphemic) {
+		return idsByGraphemic.containsKey(graphemic);
+	}
+
+	/**
+	 * Returns the IDs of the schemata whose qualified names end with the
+	 * dotted segments of the given name, e.g. the schemata
+	 * {@code CS#java.util.List} and {@code CS#java.awt.List} for {@code List}
+	 * and only the former for {@code util.List}.
+	 *
+	 * @return the IDs in depth-first order of the trie, possibly empty
+	 */
+	public List<String> getByName(String name) {
+		Node node = root;
+		String[] segments = getSegments(name);
+		for(int i=segments.length-1;i>=0 && node != null;i--) {
+			node = node.children.get(segments[i]);
+		}
+		if(node == null)
+			return Collections.emptyList();
+		List<String> result = new ArrayList<>();
+		collect(node, result);
+		return result;
+	}
+
+	private static void collect(Node node, List<String> result) {
+		result.addAll(node.ids.asList());
+		for(Node child: node.children.values()) {
+			collect(child, result);
+		}
+	}
+
+	/**
+	 * @return the number of graphemic representations
+	 */
+	public int size() {
+		return idsByGraphemic.size();
+	}
+
+	/**
+	 * @return the estimated number of bytes retained by the index, excluding
+	 * 	the graphemic representations and IDs that are shared with the schemata
+	 * @see HeapFootprint
+	 */
+	long estimateBytes() {
+		long bytes = 0;
+		for(Ids ids: idsByGraphemic.values()) {
+			bytes += HeapFootprint.HASH_ENTRY_BYTES+ids.estimateBytes();
+		}
+		bytes += graphemicsById.size()*HeapFootprint.HASH_ENTRY_BYTES;
+		return bytes+estimateBytes(root);
+	}
+
+	private static long estimateBytes(Node node) {
+		long bytes = HeapFootprint.estimateObject(2, 0)+node.ids.estimateBytes();
+		for(Map.Entry<String,Node> child: node.children.entrySet()) {
+			bytes += HeapFootprint.HASH_ENTRY_BYTES+HeapFootprint.estimateString(child.getKey())
+					+estimateBytes(child.getValue());
+		}
+		return bytes;
+	}
+
+	public void clear() {
+		idsByGraphemic.clear();
+		graphemicsById.clear();
+		root.children.clear();
+		root.ids = new Ids();
+	}
+
+	private static String getQualifiedName(String schemaId) {
+		return schemaId.substring(schemaId.indexOf('#')+1);
+	}
+
+	private static String[] getSegments(String name) {
+		String[] segments = name.split("\\.");
+		for(int i=0;i<segments.length;i++) {
+			int arrayDimensionsIndex = segments[i].indexOf('[');
+			if(arrayDimensionsIndex != -1) {
+				segments[i] = segments[i].substring(0, arrayDimensionsIndex);
+			}
+		}
+		return segments;
+	}
+
+	private static class Node {
+
+		private final Map<String,Node> children = new ConcurrentHashMap<>(2);
+		private volatile Ids ids = new Ids();
+
+		private boolean isEmpty() {
+			return ids.size() == 0 && children.isEmpty();
+		}
+	}
+
+	/**
+	 * A list of IDs that grows by doubling its capacity. Elements are
+	 * published to readers by incrementing the volatile size after they have
+	 * been written, removals create new instances.
+	 */
+	private static class Ids {
+
+		private volatile String[] elements = new String[1];
+		private volatile int size = 0;
+
+		private void add(String id) {
+			String[] elements = this.elements;
+			if(size == elements.length) {
+				this.elements = elements = Arrays.copyOf(elements, elements.length*2);
+			}
+			elements[size] = id;
+			size++;
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private long estimateBytes() {
+			return HeapFootprint.estimateObject(1, 4)
+					+HeapFootprint.estimateArray(elements.length, HeapFootprint.REFERENCE_BYTES);
+		}
+
+		private boolean contains(String id) {
+			return asList().contains(id);
+		}
+
+		private Ids without(String id) {
+			Ids result = new Ids();
+			for(String element: asList()) {
+				if(!element.equals(id))
+					result.add(element);
+			}
+			return result;
+		}
+
+		/**
+		 * @return an unmodifiable view of the IDs added so far
+		 */
+		private List<String> asList() {
+			// Read the size first, so the array contains at least size elements
+			int size = this.size;
+			String[] elements = this.elements;
+			return new AbstractList<String>() {
+
+				@Override
+				public String get(int index) {
+					if(index < 0 || index >= size)
+						throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+					return elements[index];
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,669 @@
+package de.monochromata.jactr.remma;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interns the IDs of conceptual schemata into int symbols and keeps the
+ * conceptual features of each defined schema as a slice of an int array.
+ * <p>
+ * A conceptual feature is encoded as the symbol of the schema it refers to,
+ * shifted left by one bit. The lowest bit is set, if the feature is a
+ * featuresOf: import instead of a direct reference to a schema. IDs returned
+ * by {@link #getId(int)} and {@link #decode(int)} are canonical instances, so
+ * that schemata referring to the same feature share a single String.
+ * <p>
+ * Besides the current features of a schema that may be modified e.g. when
+ * featuresOf: imports are resolved, the declared features are retained to
+ * permit re-resolution when schemata are reloaded. Both share the same slice
+ * as long as the features have not been modified.
+ * <p>
+ * The features of all schemata are stored as slices of a single shared int
+ * array, to avoid the overhead of an array object per schema. Modified
+ * features are appended as new slices, {@link #compact()} discards the slices
+ * that are no longer used.
+ * <p>
+ * Slices are hash-consed: features that are equal to a slice in the pool,
+ * e.g. the expanded features of schemata importing from the same schemata,
+ * share that slice. Slices are never modified, modifications of features
+ * store a new slice, i.e. they are copy-on-write.
+ * <p>
+ * The symbols whose declared features refer to a symbol are indexed, so
+ * that the schemata affected by reloading a schema can be found without
+ * scanning all schemata.
+ */
+public class SchemaSymbolTable {
+
+	public static final String FEATURES_OF_PREFIX = "featuresOf:";
+
+	private static final int FEATURES_OF_FLAG = 1;
+	private static final int[] NO_FEATURES = new int[0];
+
+	private final Map<String,Integer> symbolsById = new HashMap<>();
+	private final List<String> ids = new ArrayList<>();
+	private final List<String> featuresOfIds = new ArrayList<>();
+	private final BitSet defined = new BitSet();
+	private int[] pool = new int[1<<16];
+	private int poolSize = 0;
+	/**
+	 * The start of the slice of the current features of each symbol in the
+	 * pool, or -1, if the symbol is not defined
+	 */
+	private int[] offsets = newOffsets(1024);
+	private int[] lengths = new int[1024];
+	private int[] declaredOffsets = newOffsets(1024);
+	private int[] declaredLengths = new int[1024];
+	/**
+	 * An open-addressing hash table of the distinct slices in the pool, with
+	 * offset+1 per slice and 0 for empty entries
+	 */
+	private int[] slices = new int[1024];
+	private int[] sliceLengths = new int[1024];
+	private int sliceCount = 0;
+	/**
+	 * The symbols whose declared features refer to a symbol, directly or via
+	 * a featuresOf: import, by that symbol
+	 */
+	private final Map<Integer,Set<Integer>> referrersBySymbol = new HashMap<>();
+
+	/**
+	 * Returns the symbol of the given schema ID, creating a new symbol, if the
+	 * ID has not been interned before.
+	 */
+	public int intern(String id) {
+		Integer symbol = symbolsById.get(id);
+		if(symbol == null) {
+			symbol = ids.size();
+			symbolsById.put(id, symbol);
+			ids.add(id);
+			featuresOfIds.add(null);
+		}
+		return symbol;
+	}
+
+	/**
+	 * @return the symbol of the given schema ID, or -1, if the ID has not been interned
+	 */
+	public int getSymbol(String id) {
+		Integer symbol = symbolsById.get(id);
+		return symbol == null?-1:symbol;
+	}
+
+	public String getId(int symbol) {
+		return ids.get(symbol);
+	}
+
+	/**
+	 * Returns the canonical instance of the given schema ID.
+	 */
+	public String canonicalize(String id) {
+		return getId(intern(id));
+	}
+
+	public int size() {
+		return ids.size();
+	}
+
+	/**
+	 * Encodes a conceptual feature, i.e. a schema ID or a schema ID prefixed
+	 * by {@value #FEATURES_OF_PREFIX}.
+	 */
+	public int encode(String feature) {
+		if(feature.startsWith(FEATURES_OF_PREFIX)) {
+			return (intern(feature.substring(FEATURES_OF_PREFIX.length())) << 1) | FEATURES_OF_FLAG;
+		} else {
+			return intern(feature) << 1;
+		}
+	}
+
+	public int[] encode(Collection<String> features) {
+		if(features.isEmpty())
+			return NO_FEATURES;
+		int[] encoded = new int[features.size()];
+		int i = 0;
+		for(String feature: features) {
+			encoded[i++] = encode(feature);
+		}
+		return encoded;
+	}
+
+	/**
+	 * Returns the canonical string representation of an encoded feature.
+	 */
+	public String decode(int feature) {
+		int symbol = getSymbolOf(feature);
+		if(!isFeaturesOf(feature)) {
+			return ids.get(symbol);
+		} else {
+			String featuresOfId = featuresOfIds.get(symbol);
+			if(featuresOfId == null) {
+				featuresOfId = FEATURES_OF_PREFIX+ids.get(symbol);
+				featuresOfIds.set(symbol, featuresOfId);
+			}
+			return featuresOfId;
+		}
+	}
+
+	public List<String> decode(int[] features, List<String> target) {
+		for(int feature: features) {
+			target.add(decode(feature));
+		}
+		return target;
+	}
+
+	public static boolean containsFeature(int[] features, int feature) {
+		for(int candidate: features) {
+			if(candidate == feature)
+				return true;
+		}
+		return false;
+	}
+
+	public static boolean isFeaturesOf(int feature) {
+		return (feature & FEATURES_OF_FLAG) != 0;
+	}
+
+	public static int getSymbolOf(int feature) {
+		return feature >>> 1;
+	}
+
+	public static boolean hasFeaturesOf(int[] features) {
+		for(int feature: features) {
+			if(isFeaturesOf(feature))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Marks the given schema as defined and stores its encoded conceptual
+	 * features as declared and current features.
+	 *
+	 * @return the symbol of the schema
+	 */
+	public int define(String id, int[] features) {
+		int symbol = intern(id);
+		unindexReferrer(symbol);
+		defined.set(symbol);
+		setFeatures(symbol, features);
+		declaredOffsets[symbol] = offsets[symbol];
+		declaredLengths[symbol] = lengths[symbol];
+		for(int feature: features) {
+			indexReferrer(symbol, feature);
+		}
+		return symbol;
+	}
+
+	/**
+	 * Marks the given schema as no longer defined and discards its features.
+	 * The symbol remains interned, because other schemata may still refer to it.
+	 */
+	public void undefine(int symbol) {
+		if(isDefined(symbol)) {
+			unindexReferrer(symbol);
+			defined.clear(symbol);
+			offsets[symbol] = -1;
+			declaredOffsets[symbol] = -1;
+		}
+	}
+
+	private void indexReferrer(int symbol, int feature) {
+		referrersBySymbol.computeIfAbsent(getSymbolOf(feature), s -> new HashSet<>()).add(symbol);
+	}
+
+	private void unindexReferrer(int symbol) {
+		int offset = symbol < declaredOffsets.length?declaredOffsets[symbol]:-1;
+		if(offset == -1)
+			return;
+		for(int i=offset;i<offset+declaredLengths[symbol];i++) {
+			Set<Integer> referrers = referrersBySymbol.get(getSymbolOf(pool[i]));
+			if(referrers != null && referrers.remove(symbol) && referrers.isEmpty()) {
+				referrersBySymbol.remove(getSymbolOf(pool[i]));
+			}
+		}
+	}
+
+	/**
+	 * Returns the given symbols and the symbols of all defined schemata whose
+	 * declared features refer to them directly, or to them or to one of the
+	 * returned symbols via featuresOf: imports.
+	 */
+	public Set<Integer> getReferringSymbols(Collection<Integer> symbols) {
+		Set<Integer> result = new HashSet<>(symbols);
+		for(int symbol: symbols) {
+			// Direct references need to be checked, but not re-resolved
+			result.addAll(getReferrers(symbol));
+		}
+		Set<Integer> expanded = new HashSet<>(symbols);
+		LinkedList<Integer> importSources = new LinkedList<>(symbols);
+		while(!importSources.isEmpty()) {
+			int source = importSources.removeFirst();
+			int featuresOf = (source << 1) | FEATURES_OF_FLAG;
+			for(int referrer: getReferrers(source)) {
+				if(declaresFeature(referrer, featuresOf) && expanded.add(referrer)) {
+					result.add(referrer);
+					importSources.add(referrer);
+				}
+			}
+		}
+		return result;
+	}
+
+	private Set<Integer> getReferrers(int symbol) {
+		Set<Integer> referrers = referrersBySymbol.get(symbol);
+		return referrers == null?Collections.<Integer>emptySet():referrers;
+	}
+
+	private boolean declaresFeature(int symbol, int feature) {
+		int offset = declaredOffsets[symbol];
+		for(int i=offset;offset != -1 && i<offset+declaredLengths[symbol];i++) {
+			if(pool[i] == feature)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return a copy of the encoded conceptual features of the schema as they
+	 * 	have been declared, or null, if the schema is not defined
+	 */
+	public int[] getDeclaredFeatures(int symbol) {
+		return symbol < declaredOffsets.length?
+				copy(declaredOffsets[symbol], declaredLengths[symbol]):null;
+	}
+
+	/**
+	 * Replaces the current features of the given schema by its declared features.
+	 */
+	public void restoreDeclaredFeatures(int symbol) {
+		offsets[symbol] = declaredOffsets[symbol];
+		lengths[symbol] = declaredLengths[symbol];
+	}
+
+	public boolean isDefined(int symbol) {
+		return symbol >= 0 && defined.get(symbol);
+	}
+
+	public boolean isDefined(String id) {
+		return isDefined(getSymbol(id));
+	}
+
+	/**
+	 * @return a copy of the encoded conceptual features of the schema, or null,
+	 * 	if the schema is not defined
+	 */
+	public int[] getFeatures(int symbol) {
+		return symbol < offsets.length?copy(offsets[symbol], lengths[symbol]):null;
+	}
+
+	/**
+	 * @return the number of current features of the schema, or 0, if the
+	 * 	schema is not defined
+	 */
+	public int getFeatureCount(int symbol) {
+		return symbol >= 0 && symbol < offsets.length && offsets[symbol] != -1?lengths[symbol]:0;
+	}
+
+	/**
+	 * @return the current feature of the schema at the given index
+	 */
+	public int getFeature(int symbol, int index) {
+		if(index < 0 || index >= getFeatureCount(symbol))
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+getFeatureCount(symbol));
+		return pool[offsets[symbol]+index];
+	}
+
+	private int[] copy(int offset, int length) {
+		if(offset == -1)
+			return null;
+		return length == 0?NO_FEATURES:Arrays.copyOfRange(pool, offset, offset+length);
+	}
+
+	/**
+	 * Replaces the current features of the given schema.
+	 */
+	public void setFeatures(int symbol, int[] features) {
+		if(symbol >= offsets.length) {
+			int newLength = Math.max(symbol+1, offsets.length*2);
+			offsets = grow(offsets, newLength);
+			lengths = Arrays.copyOf(lengths, newLength);
+			declaredOffsets = grow(declaredOffsets, newLength);
+			declaredLengths = Arrays.copyOf(declaredLengths, newLength);
+		}
+		offsets[symbol] = store(features, 0, features.length);
+		lengths[symbol] = features.length;
+	}
+
+	private static int[] newOffsets(int length) {
+		int[] offsets = new int[length];
+		Arrays.fill(offsets, -1);
+		return offsets;
+	}
+
+	private static int[] grow(int[] offsets, int newLength) {
+		int oldLength = offsets.length;
+		offsets = Arrays.copyOf(offsets, newLength);
+		Arrays.fill(offsets, oldLength, newLength, -1);
+		return offsets;
+	}
+
+	/**
+	 * Appends the given range of the given features to the pool, unless an
+	 * equal slice is contained in the pool already.
+	 *
+	 * @return the offset of the features in the pool
+	 */
+	private int store(int[] features, int from, int length) {
+		int hash = hash(features, from, length);
+		int mask = slices.length-1;
+		int index = hash & mask;
+		for(;slices[index] != 0;index=(index+1) & mask) {
+			int offset = slices[index]-1;
+			if(sliceLengths[index] == length && equals(pool, offset, features, from, length)) {
+				return offset;
+			}
+		}
+		if(poolSize+length > pool.length) {
+			pool = Arrays.copyOf(pool, Math.max(poolSize+length, pool.length*2));
+		}
+		int offset = poolSize;
+		System.arraycopy(features, from, pool, offset, length);
+		poolSize += length;
+		slices[index] = offset+1;
+		sliceLengths[index] = length;
+		if(++sliceCount*2 > slices.length) {
+			rehashSlices(slices.length*2);
+		}
+		return offset;
+	}
+
+	private void rehashSlices(int capacity) {
+		int[] oldSlices = slices;
+		int[] oldSliceLengths = sliceLengths;
+		slices = new int[capacity];
+		sliceLengths = new int[capacity];
+		for(int i=0;i<oldSlices.length;i++) {
+			if(oldSlices[i] != 0) {
+				int index = hash(pool, oldSlices[i]-1, oldSliceLengths[i]) & (capacity-1);
+				while(slices[index] != 0) {
+					index = (index+1) & (capacity-1);
+				}
+				slices[index] = oldSlices[i];
+				sliceLengths[index] = oldSliceLengths[i];
+			}
+		}
+	}
+
+	private static int hash(int[] features, int from, int length) {
+		int hash = length;
+		for(int i=from;i<from+length;i++) {
+			hash = 31*hash + features[i];
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equals(int[] a, int fromA, int[] b, int fromB, int length) {
+		for(int i=0;i<length;i++) {
+			if(a[fromA+i] != b[fromB+i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Appends a feature to the current and to the declared conceptual
+	 * features of the given schema.
+	 */
+	public void addFeature(int symbol, int feature) {
+		boolean shared = declaredOffsets[symbol] == offsets[symbol]
+				&& declaredLengths[symbol] == lengths[symbol];
+		int[] declaredFeatures = getDeclaredFeatures(symbol);
+		setFeatures(symbol, append(getFeatures(symbol), feature));
+		indexReferrer(symbol, feature);
+		if(shared) {
+			declaredOffsets[symbol] = offsets[symbol];
+			declaredLengths[symbol] = lengths[symbol];
+		} else {
+			int[] newDeclaredFeatures = append(declaredFeatures, feature);
+			declaredOffsets[symbol] = store(newDeclaredFeatures, 0, newDeclaredFeatures.length);
+			declaredLengths[symbol] = newDeclaredFeatures.length;
+		}
+	}
+
+	/**
+	 * Copies the slices that are in use into a new pool, discarding slices
+	 * of features that have been replaced.
+	 *
+	 * @return the number of ints that have been discarded
+	 */
+	public int compact() {
+		int oldPoolSize = poolSize;
+		int[] oldPool = pool;
+		pool = new int[Math.max(getLiveSize(), 1024)];
+		poolSize = 0;
+		slices = new int[slices.length];
+		sliceLengths = new int[slices.length];
+		sliceCount = 0;
+		for(int symbol=0;symbol<offsets.length;symbol++) {
+			// Empty slices may share their offset with a different slice
+			boolean shared = declaredOffsets[symbol] == offsets[symbol]
+					&& declaredLengths[symbol] == lengths[symbol];
+			if(offsets[symbol] != -1) {
+				offsets[symbol] = store(oldPool, offsets[symbol], lengths[symbol]);
+			}
+			if(shared) {
+				declaredOffsets[symbol] = offsets[symbol];
+			} else if(declaredOffsets[symbol] != -1) {
+				declaredOffsets[symbol] = store(oldPool, declaredOffsets[symbol], declaredLengths[symbol]);
+			}
+		}
+		return oldPoolSize-poolSize;
+	}
+
+	private int getLiveSize() {
+		int liveSize = 0;
+		for(int symbol=0;symbol<offsets.length;symbol++) {
+			if(offsets[symbol] != -1)
+				liveSize += lengths[symbol];
+			if(declaredOffsets[symbol] != -1 && (declaredOffsets[symbol] != offsets[symbol]
+					|| declaredLengths[symbol] != lengths[symbol]))
+				liveSize += declaredLengths[symbol];
+		}
+		return liveSize;
+	}
+
+	/**
+	 * @return the estimated number of bytes retained by the table, including
+	 * 	the IDs of the schemata
+	 * @see HeapFootprint
+	 */
+	long estimateBytes() {
+		long bytes = HeapFootprint.estimateArray(pool.length, 4)
+				+4*HeapFootprint.estimateArray(offsets.length, 4)
+				+2*HeapFootprint.estimateArray(slices.length, 4);
+		for(String id: ids) {
+			bytes += HeapFootprint.estimateString(id)+HeapFootprint.HASH_ENTRY_BYTES
+					+HeapFootprint.estimateObject(0, 4)+2*HeapFootprint.REFERENCE_BYTES;
+		}
+		for(String featuresOfId: featuresOfIds) {
+			bytes += HeapFootprint.estimateString(featuresOfId);
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return the number of distinct slices in the shared pool of features
+	 */
+	public int getSliceCount() {
+		return sliceCount;
+	}
+
+	/**
+	 * @return the number of ints used in the shared pool of features,
+	 * 	including slices that have been replaced since the last {@link #compact()}
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * Replaces the featuresOf: imports of the given schemata and, transitively,
+	 * of the schemata they import from by the features of the imported schemata.
+	 * <p>
+	 * Schemata are expanded in topological order of their imports, i.e. after
+	 * all schemata they import from, so every schema is expanded exactly once
+	 * and the expanded features are re-used by all schemata importing them.
+	 * Thereby, the time taken is linear in the number of resulting features.
+	 *
+	 * @return the symbols of the expanded schemata, in the order of expansion
+	 * @throws IllegalStateException if a schema imports from a schema that is
+	 * 	not defined or if the imports form a cycle
+	 */
+	public List<Integer> resolveFeaturesOf(Collection<Integer> symbols) {
+		final byte visiting = 1, resolved = 2;
+		byte[] states = new byte[ids.size()];
+		List<Integer> expanded = new ArrayList<>();
+		int[] stack = new int[16];
+		int[] nextFeatureIndices = new int[16];
+		for(int root: symbols) {
+			if(!isDefined(root) || states[root] != 0 || !hasFeaturesOf(root))
+				continue;
+			int depth = 0;
+			stack[0] = root;
+			nextFeatureIndices[0] = 0;
+			states[root] = visiting;
+			while(depth >= 0) {
+				int symbol = stack[depth];
+				int offset = offsets[symbol], length = lengths[symbol];
+				int pushed = -1;
+				for(int i=nextFeatureIndices[depth];i<length && pushed == -1;i++) {
+					int feature = pool[offset+i];
+					if(!isFeaturesOf(feature))
+						continue;
+					int imported = getSymbolOf(feature);
+					if(!isDefined(imported)) {
+						throw new IllegalStateException("Could not find feature "
+								+getId(imported)+" referenced from "+getId(symbol));
+					} else if(states[imported] == visiting) {
+						throw new IllegalStateException("Cyclic featuresOf: imports "
+								+getCycle(stack, depth, imported));
+					} else if(states[imported] != resolved && hasFeaturesOf(imported)) {
+						nextFeatureIndices[depth] = i+1;
+						pushed = imported;
+					}
+				}
+				if(pushed != -1) {
+					if(++depth == stack.length) {
+						stack = Arrays.copyOf(stack, stack.length*2);
+						nextFeatureIndices = Arrays.copyOf(nextFeatureIndices, stack.length);
+					}
+					stack[depth] = pushed;
+					nextFeatureIndices[depth] = 0;
+					states[pushed] = visiting;
+				} else {
+					// All imports are expanded
+					setFeatures(symbol, expandFeaturesOf(getId(symbol), getFeatures(symbol)));
+					states[symbol] = resolved;
+					expanded.add(symbol);
+					depth--;
+				}
+			}
+		}
+		return expanded;
+	}
+
+	private boolean hasFeaturesOf(int symbol) {
+		for(int i=0;i<getFeatureCount(symbol);i++) {
+			if(isFeaturesOf(pool[offsets[symbol]+i]))
+				return true;
+		}
+		return false;
+	}
+
+	private String getCycle(int[] stack, int depth, int imported) {
+		StringBuilder cycle = new StringBuilder();
+		int start = depth;
+		while(stack[start] != imported) {
+			start--;
+		}
+		for(int i=start;i<=depth;i++) {
+			cycle.append(getId(stack[i])).append(" -> ");
+		}
+		return cycle.append(getId(imported)).toString();
+	}
+
+	/**
+	 * Returns the features that remain when each featuresOf: entry in the given
+	 * features is replaced by the current features of the schema it refers to.
+	 * Direct features are retained in their order, imported features are
+	 * appended in the order of the featuresOf: entries.
+	 *
+	 * @param schemaId the ID of the schema the features belong to, for error messages
+	 */
+	public int[] expandFeaturesOf(String schemaId, int[] features) {
+		int length = 0;
+		for(int feature: features) {
+			if(isFeaturesOf(feature)) {
+				int imported = getSymbolOf(feature);
+				if(imported >= offsets.length || offsets[imported] == -1) {
+					throw new IllegalStateException("Could not find feature "
+							+getId(imported)+" referenced from "+schemaId);
+				}
+				length += lengths[imported];
+			} else {
+				length++;
+			}
+		}
+		int[] result = new int[length];
+		int index = 0;
+		for(int feature: features) {
+			if(!isFeaturesOf(feature)) {
+				result[index++] = feature;
+			}
+		}
+		for(int feature: features) {
+			if(isFeaturesOf(feature)) {
+				int imported = getSymbolOf(feature);
+				System.arraycopy(pool, offsets[imported], result, index, lengths[imported]);
+				index += lengths[imported];
+			}
+		}
+		return result;
+	}
+
+	private static int[] append(int[] features, int feature) {
+		if(features == null) {
+			features = NO_FEATURES;
+		}
+		int[] newFeatures = Arrays.copyOf(features, features.length+1);
+		newFeatures[features.length] = feature;
+		return newFeatures;
+	}
+
+	public void clear() {
+		symbolsById.clear();
+		ids.clear();
+		featuresOfIds.clear();
+		defined.clear();
+		pool = new int[1<<16];
+		poolSize = 0;
+		offsets = newOffsets(1024);
+		lengths = new int[1024];
+		declaredOffsets = newOffsets(1024);
+		declaredLengths = new int[1024];
+		slices = new int[1024];
+		sliceLengths = new int[1024];
+		sliceCount = 0;
+		referrersBySymbol.clear();
+	}
+
+}
@@ -0,0 +1,193 @@
+package de.monochromata.jactr.remma;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wall-clock time, allocated bytes and element counts of the phases that
+ * REMMA runs through while it is installed and initialized.
+ * <p>
+ * Allocated bytes are obtained from the JVM for the current thread. They are
+ * reported as -1, if the JVM does not support measuring thread allocation.
+ */
+public class StartupStatistics {
+
+	private final List<Phase> phases = new ArrayList<>();
+
+	/**
+	 * Starts measuring the phase with the given name on the current thread.
+	 */
+	public Measurement begin(String name) {
+		return new Measurement(name);
+	}
+
+	public synchronized List<Phase> getPhases() {
+		return Collections.unmodifiableList(new ArrayList<>(phases));
+	}
+
+	/**
+	 * @return the most recently recorded phase with the given name, or null, if no such phase has been recorded
+	 */
+	public synchronized Phase getPhase(String name) {
+		for(int i=phases.size()-1;i>=0;i--) {
+			if(phases.get(i).getName().equals(name))
+				return phases.get(i);
+		}
+		return null;
+	}
+
+	public synchronized long getTotalWallClockNanos() {
+		long total = 0;
+		for(Phase phase: phases) {
+			total += phase.getWallClockNanos();
+		}
+		return total;
+	}
+
+	/**
+	 * @return the total number of allocated bytes, or -1, if allocation could not be measured
+	 */
+	public synchronized long getTotalAllocatedBytes() {
+		long total = 0;
+		for(Phase phase: phases) {
+			if(phase.getAllocatedBytes() < 0)
+				return -1;
+			total += phase.getAllocatedBytes();
+		}
+		return total;
+	}
+
+	public synchronized void clear() {
+		phases.clear();
+	}
+
+	private synchronized void add(Phase phase) {
+		phases.add(phase);
+	}
+
+	/**
+	 * Returns a single line of key=value pairs that summarizes all phases.
+	 */
+	public synchronized String toSummary() {
+		StringBuilder builder = new StringBuilder("REMMA startup totalMs=")
+				.append(nanosToMs(getTotalWallClockNanos()))
+				.append(" totalAllocatedBytes=").append(getTotalAllocatedBytes());
+		for(Phase phase: phases) {
+			builder.append(' ').append(phase.getName())
+				.append("[ms=").append(nanosToMs(phase.getWallClockNanos()))
+				.append(" allocatedBytes=").append(phase.getAllocatedBytes())
+				.append(" elements=").append(phase.getElementCount())
+				.append(']');
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return toSummary();
+	}
+
+	private static String nanosToMs(long nanos) {
+		return String.format("%.3f", nanos/1e6);
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread so far,
+	 * or -1, if the JVM does not support measuring thread allocation.
+	 */
+	static long getAllocatedBytesOfCurrentThread() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if(bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+				if(sunBean.isThreadAllocatedMemorySupported()
+						&& sunBean.isThreadAllocatedMemoryEnabled()) {
+					return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+				}
+			}
+		} catch (LinkageError | UnsupportedOperationException e) {
+			// com.sun.management is not available, e.g. on non-HotSpot JVMs
+		}
+		return -1;
+	}
+
+	/**
+	 * A phase that is currently being measured.
+	 */
+	public class Measurement {
+
+		private final String name;
+		private final long startNanos;
+		private final long startAllocatedBytes;
+
+		private Measurement(String name) {
+			this.name = name;
+			this.startAllocatedBytes = getAllocatedBytesOfCurrentThread();
+			this.startNanos = System.nanoTime();
+		}
+
+		/**
+		 * Finishes the measurement and records the phase.
+		 *
+		 * @param elementCount the number of elements processed in the phase
+		 * @return the recorded phase
+		 */
+		public Phase finish(long elementCount) {
+			long wallClockNanos = System.nanoTime()-startNanos;
+			long endAllocatedBytes = getAllocatedBytesOfCurrentThread();
+			long allocatedBytes = (startAllocatedBytes < 0 || endAllocatedBytes < 0)?
+					-1:endAllocatedBytes-startAllocatedBytes;
+			Phase phase = new Phase(name, wallClockNanos, allocatedBytes, elementCount);
+			add(phase);
+			return phase;
+		}
+	}
+
+	/**
+	 * The measurements of a single phase.
+	 */
+	public static class Phase {
+
+		private final String name;
+		private final long wallClockNanos;
+		private final long allocatedBytes;
+		private final long elementCount;
+
+		public Phase(String name, long wallClockNanos, long allocatedBytes,
+				long elementCount) {
+			this.name = name;
+			this.wallClockNanos = wallClockNanos;
+			this.allocatedBytes = allocatedBytes;
+			this.elementCount = elementCount;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getWallClockNanos() {
+			return wallClockNanos;
+		}
+
+		/**
+		 * @return the number of bytes allocated by the phase, or -1, if allocation could not be measured
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		public long getElementCount() {
+			return elementCount;
+		}
+
+		@Override
+		public String toString() {
+			return "Phase [name=" + name + ", wallClockNanos=" + wallClockNanos
+					+ ", allocatedBytes=" + allocatedBytes + ", elementCount="
+					+ elementCount + "]";
+		}
+	}
+}
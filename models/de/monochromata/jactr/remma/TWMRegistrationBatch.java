@@ -0,0 +1,85 @@
+package de.monochromata.jactr.remma;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.monochromata.jactr.tls.ReferencePotential;
+import de.monochromata.jactr.twm.ITWM;
+
+/**
+ * Collects the registrations of reference potentials with TWM while an AST is
+ * loaded and hands them to TWM in bulk afterwards.
+ * <p>
+ * Registrations are flushed grouped by kind: co-reference chains first, then
+ * the argument tables of declaring reference potentials, then the arguments
+ * and finally the reference potentials themselves. Thereby, all argument
+ * tables are prepared before arguments are added to them, regardless of the
+ * order in which declarations and arguments appear in the AST.
+ */
+public class TWMRegistrationBatch {
+
+	private final List<String> coReferenceIds = new ArrayList<>();
+	private final List<String> coReferenceChains = new ArrayList<>();
+	private final List<String> declaringIds = new ArrayList<>();
+	private final List<String> argumentRoleIns = new ArrayList<>();
+	private final List<String> argumentIds = new ArrayList<>();
+	private final List<String> argumentRoleIds = new ArrayList<>();
+	private final List<ReferencePotential> referencePotentials = new ArrayList<>();
+
+	public void addToCoReferenceChain(String id, String coReferenceChain) {
+		coReferenceIds.add(id);
+		coReferenceChains.add(coReferenceChain);
+	}
+
+	public void prepareArguments(String id) {
+		declaringIds.add(id);
+	}
+
+	public void addArgument(String roleIn, String id, String roleId) {
+		argumentRoleIns.add(roleIn);
+		argumentIds.add(id);
+		argumentRoleIds.add(roleId);
+	}
+
+	public void addReferencePotential(ReferencePotential referencePotential) {
+		referencePotentials.add(referencePotential);
+	}
+
+	public boolean isEmpty() {
+		return coReferenceIds.isEmpty() && declaringIds.isEmpty()
+				&& argumentIds.isEmpty() && referencePotentials.isEmpty();
+	}
+
+	/**
+	 * Passes all collected registrations to the given TWM and clears the batch.
+	 *
+	 * @return the number of registered reference potentials
+	 */
+	public int flush(ITWM twm) {
+		for(int i=0;i<coReferenceIds.size();i++) {
+			twm.addToCoReferenceChain(coReferenceIds.get(i), coReferenceChains.get(i));
+		}
+		for(String id: declaringIds) {
+			twm.prepareArguments(id);
+		}
+		for(int i=0;i<argumentIds.size();i++) {
+			twm.addArgument(argumentRoleIns.get(i), argumentIds.get(i), argumentRoleIds.get(i));
+		}
+		for(ReferencePotential referencePotential: referencePotentials) {
+			twm.addReferencePotential(referencePotential);
+		}
+		int registered = referencePotentials.size();
+		clear();
+		return registered;
+	}
+
+	public void clear() {
+		coReferenceIds.clear();
+		coReferenceChains.clear();
+		declaringIds.clear();
+		argumentRoleIns.clear();
+		argumentIds.clear();
+		argumentRoleIds.clear();
+		referencePotentials.clear();
+	}
+}
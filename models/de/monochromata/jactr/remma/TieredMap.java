@@ -0,0 +1,231 @@
+package de.monochromata.jactr.remma;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A map that consists of an immutable, frozen tier and a concurrent overlay.
+ * <p>
+ * All modifications go to the overlay, removals of frozen entries are
+ * recorded as tombstones. {@link #freeze()} merges the overlay into a new
+ * frozen tier that is laid out in two arrays with open addressing and that
+ * replaces the previous frozen tier atomically. Hence, the map can be read
+ * by any thread without locking, while a single thread modifies it.
+ * <p>
+ * Null keys and values cannot be stored, but like in a HashMap, null keys
+ * can be looked up and removed, e.g. by TWM.
+ */
+public class TieredMap<K,V> extends AbstractMap<K,V> {
+
+	private static final Object REMOVED = new Object();
+
+	private volatile Frozen frozen = Frozen.EMPTY;
+	private final ConcurrentHashMap<K,Object> overlay = new ConcurrentHashMap<>();
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		if(key == null)
+			return null;
+		Object value = overlay.get(key);
+		if(value == REMOVED)
+			return null;
+		if(value != null)
+			return (V)value;
+		return (V)frozen.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		Objects.requireNonNull(value);
+		V oldValue = get(key);
+		overlay.put(key, value);
+		return oldValue;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		if(key == null)
+			return null;
+		V oldValue = get(key);
+		if(frozen.get(key) != null) {
+			overlay.put((K)key, REMOVED);
+		} else {
+			overlay.remove(key);
+		}
+		return oldValue;
+	}
+
+	@Override
+	public int size() {
+		Frozen frozen = this.frozen;
+		int size = frozen.size;
+		for(Map.Entry<K,Object> entry: overlay.entrySet()) {
+			boolean isFrozen = frozen.get(entry.getKey()) != null;
+			if(entry.getValue() == REMOVED) {
+				if(isFrozen)
+					size--;
+			} else if(!isFrozen) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		frozen = Frozen.EMPTY;
+		overlay.clear();
+	}
+
+	/**
+	 * Merges the overlay into a new frozen tier.
+	 */
+	public void freeze() {
+		Map<K,Object> merged = new HashMap<>(overlay);
+		List<Map.Entry<K,V>> entries = snapshot(merged);
+		Frozen newFrozen = new Frozen(entries.size());
+		for(Map.Entry<K,V> entry: entries) {
+			newFrozen.put(entry.getKey(), entry.getValue());
+		}
+		frozen = newFrozen;
+		// Only drop the overlay entries that have been merged
+		for(Map.Entry<K,Object> entry: merged.entrySet()) {
+			overlay.remove(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * @return the number of entries that have not been frozen yet
+	 */
+	public int getOverlaySize() {
+		return overlay.size();
+	}
+
+	private List<Map.Entry<K,V>> snapshot() {
+		return snapshot(overlay);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map.Entry<K,V>> snapshot(Map<K,Object> overlay) {
+		Frozen frozen = this.frozen;
+		List<Map.Entry<K,V>> entries = new ArrayList<>(frozen.size+overlay.size());
+		for(int i=0;i<frozen.keys.length;i++) {
+			Object key = frozen.keys[i];
+			if(key != null && !overlay.containsKey(key)) {
+				entries.add(new AbstractMap.SimpleImmutableEntry<K,V>((K)key, (V)frozen.values[i]));
+			}
+		}
+		for(Map.Entry<K,Object> entry: overlay.entrySet()) {
+			if(entry.getValue() != REMOVED) {
+				entries.add(new AbstractMap.SimpleImmutableEntry<K,V>(entry.getKey(), (V)entry.getValue()));
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Iterates over a snapshot of the map. Removing entries via the iterator
+	 * removes them from the map.
+	 */
+	@Override
+	public Set<Map.Entry<K,V>> entrySet() {
+		return new AbstractSet<Map.Entry<K,V>>() {
+
+			@Override
+			public Iterator<Map.Entry<K,V>> iterator() {
+				Iterator<Map.Entry<K,V>> iterator = snapshot().iterator();
+				return new Iterator<Map.Entry<K,V>>() {
+
+					private Map.Entry<K,V> current;
+
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public Map.Entry<K,V> next() {
+						return current = iterator.next();
+					}
+
+					@Override
+					public void remove() {
+						if(current == null)
+							throw new IllegalStateException();
+						TieredMap.this.remove(current.getKey());
+						current = null;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return TieredMap.this.size();
+			}
+		};
+	}
+
+	/**
+	 * An immutable hash table with open addressing and linear probing.
+	 */
+	private static class Frozen {
+
+		private static final Frozen EMPTY = new Frozen(0);
+
+		private final Object[] keys;
+		private final Object[] values;
+		private int size;
+
+		private Frozen(int expectedSize) {
+			int capacity = 2;
+			while(capacity < expectedSize*2) {
+				capacity <<= 1;
+			}
+			keys = new Object[capacity];
+			values = new Object[capacity];
+		}
+
+		private int indexOf(Object key) {
+			int hash = key.hashCode();
+			return (hash ^ (hash >>> 16)) & (keys.length-1);
+		}
+
+		/**
+		 * Only used while the table is built.
+		 */
+		private void put(Object key, Object value) {
+			int index = indexOf(key);
+			while(keys[index] != null) {
+				index = (index+1) & (keys.length-1);
+			}
+			keys[index] = key;
+			values[index] = value;
+			size++;
+		}
+
+		private Object get(Object key) {
+			if(key == null)
+				return null;
+			for(int index=indexOf(key);keys[index] != null;index=(index+1) & (keys.length-1)) {
+				if(keys[index].equals(key))
+					return values[index];
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package de.monochromata.jactr.remma;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Records trace events of the request delegate in preallocated arrays that
+ * are overwritten in a ring, so that recording neither allocates nor builds
+ * strings. When the buffer is full, the oldest events are overwritten.
+ * <p>
+ * Each event consists of its kind, a model time in seconds (NaN, if not
+ * known), a value, e.g. a duration in seconds, an int detail, e.g. the
+ * {@link Decision} that has been made, and a subject, e.g. the fixation or
+ * word the event relates to. Subjects are only converted to strings when
+ * the buffer is dumped.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @see REMMAParticipant#TRACE_BUFFER_SIZE
+ */
+public class TraceBuffer {
+
+	public enum Kind {
+		FIXATION_STARTED,
+		FIXATION_FINISHED,
+		WORD_CHOSEN,
+		ENCODING_DURATION,
+		DECISION,
+		PREPARATION_RESET,
+		CHUNK_CREATED,
+		CHUNK_ENCODED,
+		END_OF_DATA
+	}
+
+	/**
+	 * The branches taken when choosing between encoding an available word
+	 * and performing the next saccade.
+	 */
+	public enum Decision {
+		/**
+		 * No word is available, the next saccade is performed
+		 */
+		NO_WORD_AVAILABLE,
+		/**
+		 * Re-fixating the current word speeds up its encoding
+		 */
+		REFIXATION,
+		/**
+		 * The re-fixation is too far away to speed up encoding the current word
+		 */
+		ENCODE_BEFORE_REFIXATION,
+		/**
+		 * Encoding the foveated word of the next fixation is faster
+		 */
+		NEXT_SACCADE,
+		/**
+		 * Encoding the available word from parafoveal preview is faster
+		 */
+		ENCODE_AVAILABLE_WORD
+	}
+
+	private static final Kind[] KINDS = Kind.values();
+	private static final Decision[] DECISIONS = Decision.values();
+
+	private final byte[] kinds;
+	private final double[] times;
+	private final double[] values;
+	private final int[] details;
+	private final Object[] subjects;
+	/**
+	 * The number of events recorded since the buffer was created or cleared
+	 */
+	private long recorded = 0;
+
+	public TraceBuffer(int capacity) {
+		if(capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be positive: "+capacity);
+		kinds = new byte[capacity];
+		times = new double[capacity];
+		values = new double[capacity];
+		details = new int[capacity];
+		subjects = new Object[capacity];
+	}
+
+	public void add(Kind kind, double time, double value, Object subject) {
+		add(kind, time, value, 0, subject);
+	}
+
+	public void add(Decision decision, double time, double value, Object subject) {
+		add(Kind.DECISION, time, value, decision.ordinal(), subject);
+	}
+
+	public void add(Kind kind, double time, double value, int detail, Object subject) {
+		int index = (int)(recorded%kinds.length);
+		kinds[index] = (byte)kind.ordinal();
+		times[index] = time;
+		values[index] = value;
+		details[index] = detail;
+		subjects[index] = subject;
+		recorded++;
+	}
+
+	public int getCapacity() {
+		return kinds.length;
+	}
+
+	/**
+	 * @return the number of events in the buffer
+	 */
+	public int size() {
+		return (int)Math.min(recorded, kinds.length);
+	}
+
+	/**
+	 * @return the number of events recorded since the buffer was created or
+	 * 	cleared, including overwritten events
+	 */
+	public long getRecorded() {
+		return recorded;
+	}
+
+	/**
+	 * Passes the events in the buffer to the given visitor, oldest first.
+	 */
+	public void forEach(Visitor visitor) {
+		long first = recorded-size();
+		for(long sequence=first;sequence<recorded;sequence++) {
+			int index = (int)(sequence%kinds.length);
+			visitor.visit(sequence, KINDS[kinds[index]], times[index], values[index],
+					details[index], subjects[index]);
+		}
+	}
+
+	/**
+	 * Writes the events in the buffer as tab-separated lines of sequence
+	 * number, kind, time, value, detail and subject, oldest first.
+	 */
+	public void dump(PrintWriter writer) {
+		forEach((sequence, kind, time, value, detail, subject) -> {
+			writer.print(sequence);
+			writer.print('\t');
+			writer.print(kind);
+			writer.print('\t');
+			writer.print(time);
+			writer.print('\t');
+			writer.print(value);
+			writer.print('\t');
+			writer.print(kind == Kind.DECISION?DECISIONS[detail].toString():Integer.toString(detail));
+			writer.print('\t');
+			writer.println(subject);
+		});
+		writer.flush();
+	}
+
+	/**
+	 * @return the estimated number of bytes retained by the buffer, excluding
+	 * 	the subjects
+	 * @see HeapFootprint
+	 */
+	long estimateBytes() {
+		int capacity = kinds.length;
+		return HeapFootprint.estimateObject(5, 8)
+				+HeapFootprint.estimateArray(capacity, 1)
+				+2*HeapFootprint.estimateArray(capacity, 8)
+				+HeapFootprint.estimateArray(capacity, 4)
+				+HeapFootprint.estimateArray(capacity, HeapFootprint.REFERENCE_BYTES);
+	}
+
+	public void clear() {
+		Arrays.fill(subjects, null);
+		recorded = 0;
+	}
+
+	public interface Visitor {
+		void visit(long sequence, Kind kind, double time, double value, int detail, Object subject);
+	}
+}
@@ -0,0 +1,171 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class AstDeltaTest {
+
+	private static final String BINDING_STUB = "{\"ID\":\"T\",\"CT\":\"Type\",\"LF\":{\"graphemic\":\"T\"},\"CF\":[]}";
+	private static final String DECLARATION = "{\"ID\":\"T\",\"CT\":\"Type\",\"LF\":{\"graphemic\":\"T\"},\"CF\":[\"S\"],"
+			+"\"SF\":{\"uri\":\"A.java\",\"startLine\":3}}";
+	private static final String WORD = "{\"ID\":\"w\",\"CT\":\"Word\",\"LF\":{\"graphemic\":\"w\"},"
+			+"\"SF\":{\"uri\":\"A.java\",\"startLine\":4}}";
+	private static final String OTHER_WORD = "{\"ID\":\"v\",\"CT\":\"Word\",\"LF\":{\"graphemic\":\"v\"},"
+			+"\"SF\":{\"uri\":\"B.java\",\"startLine\":1}}";
+
+	@Test
+	public void reloadOfUnchangedFileIsEmpty() {
+		Map<String,AstDelta.Entry> loadedEntries = load(DECLARATION, WORD);
+
+		AstDelta delta = AstDelta.compute(loadedEntries, array(DECLARATION, WORD), null);
+
+		assertTrue(delta.toString(), delta.isEmpty());
+	}
+
+	@Test
+	public void changedEntryIsReplacedAndNewEntryIsAdded() {
+		Map<String,AstDelta.Entry> loadedEntries = load(DECLARATION);
+		String changedDeclaration = DECLARATION.replace("[\"S\"]", "[\"S\",\"U\"]");
+
+		AstDelta delta = AstDelta.compute(loadedEntries, array(changedDeclaration, WORD), null);
+
+		assertEquals(normalize(changedDeclaration), normalize(delta.getReplacedEntries()));
+		assertEquals(normalize(WORD), normalize(delta.getAddedEntries()));
+		assertTrue(delta.getRemovedIds().isEmpty());
+	}
+
+	@Test
+	public void entryRetainsSpatialAndLexicalFeatures() {
+		AstDelta.Entry entry = AstDelta.createEntry(new JSONObject(DECLARATION), "Type");
+
+		assertEquals("Type", entry.getConceptualType());
+		assertEquals("A.java", entry.getUri());
+		assertEquals(3, entry.getLine());
+		assertEquals("T", entry.getGraphemic());
+	}
+
+	@Test
+	public void completeFileRemovesMissingEntries() {
+		Map<String,AstDelta.Entry> loadedEntries = load(DECLARATION, WORD, OTHER_WORD);
+
+		AstDelta delta = AstDelta.compute(loadedEntries, array(DECLARATION), null);
+
+		assertEquals(Arrays.asList("v", "w"), sorted(delta.getRemovedIds()));
+	}
+
+	@Test
+	public void fragmentOnlyRemovesEntriesOfItsUri() {
+		Map<String,AstDelta.Entry> loadedEntries = load(BINDING_STUB, DECLARATION, WORD, OTHER_WORD);
+
+		AstDelta delta = AstDelta.compute(loadedEntries, array(BINDING_STUB, DECLARATION), "A.java");
+
+		assertEquals(Arrays.asList("w"), delta.getRemovedIds());
+	}
+
+	@Test
+	public void fingerprintDoesNotDependOnKeyOrder() {
+		assertEquals(AstDelta.fingerprint(new JSONObject("{\"a\":1,\"b\":[1,2]}")),
+				AstDelta.fingerprint(new JSONObject("{\"b\":[1,2],\"a\":1}")));
+	}
+
+	@Test
+	public void reloadOfUnchangedFileWithDuplicateIdsIsEmpty() {
+		Map<String,AstDelta.Entry> loadedEntries = load(BINDING_STUB, DECLARATION, WORD);
+
+		AstDelta delta = AstDelta.compute(loadedEntries, array(BINDING_STUB, DECLARATION, WORD), null);
+
+		assertTrue(delta.toString(), delta.isEmpty());
+	}
+
+	@Test
+	public void allOccurrencesOfAChangedIdAreReloadedInFileOrder() {
+		Map<String,AstDelta.Entry> loadedEntries = load(BINDING_STUB, DECLARATION, WORD);
+		String changedDeclaration = DECLARATION.replace("[\"S\"]", "[\"S\",\"U\"]");
+
+		AstDelta delta = AstDelta.compute(loadedEntries, array(BINDING_STUB, changedDeclaration, WORD), null);
+
+		assertEquals(normalize(BINDING_STUB, changedDeclaration), normalize(delta.getReplacedEntries()));
+		assertEquals(normalize(BINDING_STUB, changedDeclaration), normalize(delta.getEntriesToLoad()));
+		assertTrue(delta.getAddedEntries().isEmpty());
+		assertTrue(delta.getRemovedIds().isEmpty());
+	}
+
+	@Test
+	public void reorderedOccurrencesAreReplaced() {
+		Map<String,AstDelta.Entry> loadedEntries = load(BINDING_STUB, DECLARATION);
+
+		AstDelta delta = AstDelta.compute(loadedEntries, array(DECLARATION, BINDING_STUB), null);
+
+		assertEquals(normalize(DECLARATION, BINDING_STUB), normalize(delta.getEntriesToLoad()));
+	}
+
+	@Test
+	public void addedEntriesAreLoadedInFileOrderWithReplacedEntries() {
+		Map<String,AstDelta.Entry> loadedEntries = load(DECLARATION);
+		String changedDeclaration = DECLARATION.replace("[\"S\"]", "[]");
+
+		AstDelta delta = AstDelta.compute(loadedEntries, array(WORD, changedDeclaration), null);
+
+		assertEquals(normalize(WORD), normalize(delta.getAddedEntries()));
+		assertEquals(normalize(WORD, changedDeclaration), normalize(delta.getEntriesToLoad()));
+	}
+
+	@Test
+	public void mergedEntryRetainsSpatialFeaturesOfDeclaration() {
+		Map<String,AstDelta.Entry> loadedEntries = load(DECLARATION, BINDING_STUB);
+
+		AstDelta.Entry entry = loadedEntries.get("T");
+
+		assertEquals("A.java", entry.getUri());
+		assertEquals(3, entry.getLine());
+	}
+
+	private static Map<String,AstDelta.Entry> load(String... entries) {
+		Map<String,AstDelta.Entry> loadedEntries = new HashMap<>();
+		for(String entry: entries) {
+			JSONObject obj = new JSONObject(entry);
+			loadedEntries.merge(obj.getString("ID"), AstDelta.createEntry(obj, obj.getString("CT")),
+					AstDelta.Entry::merge);
+		}
+		return loadedEntries;
+	}
+
+	private static JSONArray array(String... entries) {
+		return new JSONArray(Arrays.toString(entries));
+	}
+
+	private static List<String> sorted(List<String> ids) {
+		List<String> result = new ArrayList<>(ids);
+		result.sort(null);
+		return result;
+	}
+
+	/**
+	 * @return the given entries, normalized for comparison
+	 */
+	private static List<String> normalize(String... entries) {
+		List<String> result = new ArrayList<>();
+		for(String entry: entries) {
+			result.add(new JSONObject(entry).toString());
+		}
+		return result;
+	}
+
+	private static List<String> normalize(List<JSONObject> entries) {
+		List<String> result = new ArrayList<>();
+		for(JSONObject entry: entries) {
+			result.add(entry.toString());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,108 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AstIndexTest {
+
+	private static final String AST = "[\n"
+			+"{\"ID\":\"T\",\"CT\":\"Type\",\"LF\":{\"graphemic\":\"T\"},\"CF\":[]},\n"
+			+"{\"ID\":\"w2\",\"CT\":\"Word\",\"LF\":{\"graphemic\":\"b\"},"
+			+"\"SF\":{\"uri\":\"A.java\",\"startLine\":2,\"startColumn\":0,\"length\":1}},\n"
+			+"{\"ID\":\"w1\",\"CT\":\"Word\",\"LF\":{\"graphemic\":\"a\"},"
+			+"\"SF\":{\"uri\":\"A.java\",\"startLine\":1,\"startColumn\":4,\"length\":1}},\n"
+			+"{\"ID\":\"w3\",\"CT\":\"Word\",\"LF\":{\"graphemic\":\"a\"},"
+			+"\"SF\":{\"uri\":\"B.java\",\"startLine\":1,\"startColumn\":0,\"length\":3}}\n"
+			+"]";
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void wordsAreIndexedWithTheirGraphemics() throws IOException {
+		File jsonFile = write(AST);
+		List<String> nonWords = new ArrayList<>();
+
+		try(AstIndex index = AstIndex.open(jsonFile, obj -> nonWords.add(obj.getString("ID")))) {
+			assertEquals(Arrays.asList("T"), nonWords);
+			assertEquals(3, index.getNumberOfWords());
+			assertEquals(Arrays.asList("b", "a"), index.getGraphemics());
+			int ordinal = index.getWordOrdinal("A.java", 1, 4);
+			assertEquals("a", index.getGraphemic(ordinal));
+			assertEquals("w1", index.decodeWord(ordinal).getString("ID"));
+			assertEquals("w3", index.decodeWord(index.getCoveringWordOrdinal("B.java", 1, 2)).getString("ID"));
+			assertEquals(-1, index.getWordOrdinal("A.java", 1, 5));
+		}
+	}
+
+	@Test
+	public void indexIsRebuiltWhenJsonChanges() throws IOException {
+		File jsonFile = write(AST);
+		AstIndex.open(jsonFile, obj -> {}).close();
+
+		write(AST.replace("\"graphemic\":\"b\"", "\"graphemic\":\"c\""));
+		assertTrue(jsonFile.setLastModified(jsonFile.lastModified()+2000));
+		try(AstIndex index = AstIndex.open(jsonFile, obj -> {})) {
+			assertEquals(new JSONObject("{\"graphemic\":\"c\"}").toString(),
+					index.decodeWord(index.getWordOrdinal("A.java", 2, 0)).getJSONObject("LF").toString());
+		}
+	}
+
+	@Test
+	public void indexIsReplacedWithoutLeavingTemporaryFiles() throws IOException {
+		File jsonFile = write(AST);
+		AstIndex.open(jsonFile, obj -> {}).close();
+		File indexFile = new File(jsonFile.getPath()+AstIndex.INDEX_SUFFIX);
+		assertTrue(indexFile.exists());
+
+		write(AST.replace("\"graphemic\":\"b\"", "\"graphemic\":\"c\""));
+		assertTrue(jsonFile.setLastModified(jsonFile.lastModified()+2000));
+		try(AstIndex index = AstIndex.open(jsonFile, obj -> {})) {
+			assertEquals(Arrays.asList("c", "a"), index.getGraphemics());
+		}
+
+		assertEquals(Arrays.asList(jsonFile.getName(), indexFile.getName()),
+				sortedNames(folder.getRoot().list()));
+	}
+
+	@Test
+	public void upToDateIndexIsReused() throws IOException {
+		File jsonFile = write(AST);
+		AstIndex.open(jsonFile, obj -> {}).close();
+		File indexFile = new File(jsonFile.getPath()+AstIndex.INDEX_SUFFIX);
+		long built = indexFile.lastModified();
+		assertTrue(indexFile.setLastModified(built-10000));
+
+		try(AstIndex index = AstIndex.open(jsonFile, obj -> {})) {
+			assertFalse(indexFile.lastModified() == built);
+			assertEquals(new JSONObject("{\"graphemic\":\"b\"}").toString(),
+					index.decodeWord(index.getWordOrdinal("A.java", 2, 0)).getJSONObject("LF").toString());
+		}
+	}
+
+	private File write(String content) throws IOException {
+		File jsonFile = new File(folder.getRoot(), "ast.json");
+		Files.write(jsonFile.toPath(), content.getBytes(Charset.defaultCharset()));
+		return jsonFile;
+	}
+
+	private static List<String> sortedNames(String[] names) {
+		List<String> result = new ArrayList<>(Arrays.asList(names));
+		result.sort(null);
+		return result;
+	}
+}
@@ -0,0 +1,52 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CountMinSketchTest {
+
+	@Test
+	public void widthIsRoundedUpToAPowerOfTwo() {
+		assertEquals(1024, new CountMinSketch(1000).getWidth());
+	}
+
+	@Test
+	public void estimatesNeverFallBelowTrueCounts() {
+		CountMinSketch sketch = new CountMinSketch(64);
+		for(int i=0;i<500;i++) {
+			for(int j=0;j<=i%7;j++) {
+				sketch.add("w"+i);
+			}
+		}
+
+		for(int i=0;i<500;i++) {
+			assertTrue("w"+i, sketch.estimate("w"+i) >= i%7+1);
+		}
+	}
+
+	@Test
+	public void distinctWordsAreCountedExactlyInAWideSketch() {
+		CountMinSketch sketch = new CountMinSketch(1<<16);
+		sketch.add("list");
+		sketch.add("List");
+		sketch.add("map");
+
+		assertEquals(2, sketch.estimate("LIST"));
+		assertEquals(1, sketch.estimate("map"));
+		assertEquals(0, sketch.estimate("set"));
+		assertEquals(3, sketch.getTotal());
+	}
+
+	@Test
+	public void clearResetsCounts() {
+		CountMinSketch sketch = new CountMinSketch(16);
+		sketch.add("list");
+
+		sketch.clear();
+
+		assertEquals(0, sketch.estimate("list"));
+		assertEquals(0, sketch.getTotal());
+	}
+}
@@ -0,0 +1,95 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FrequencyLexiconTest {
+
+	private static final double DEFAULT = 0.5;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void everyWordIsFoundInItsSlot() {
+		Map<String,Double> frequenciesByWord = new LinkedHashMap<>();
+		for(int i=0;i<5000;i++) {
+			frequenciesByWord.put("w"+Integer.toString(i, 36), (i+1)/10000.0);
+		}
+
+		FrequencyLexicon lexicon = FrequencyLexicon.create(frequenciesByWord);
+
+		assertEquals(frequenciesByWord.size(), lexicon.size());
+		for(Map.Entry<String,Double> entry: frequenciesByWord.entrySet()) {
+			assertEquals(entry.getKey(), entry.getValue(), lexicon.getFrequency(entry.getKey(), DEFAULT), 0.0);
+			assertEquals(entry.getKey(), -Math.log(entry.getValue()),
+					lexicon.getNegativeLogFrequency(entry.getKey(), DEFAULT), 0.0);
+		}
+		assertEquals(DEFAULT, lexicon.getFrequency("w-1", DEFAULT), 0.0);
+	}
+
+	@Test
+	public void identifiersUseTheirRarestSegment() {
+		Map<String,Double> frequenciesByWord = new LinkedHashMap<>();
+		frequenciesByWord.put("get", 0.1);
+		frequenciesByWord.put("frequency", 0.001);
+		frequenciesByWord.put("html", 0.01);
+		frequenciesByWord.put("parser", 0.02);
+
+		FrequencyLexicon lexicon = FrequencyLexicon.create(frequenciesByWord);
+
+		assertEquals(0.1, lexicon.getFrequency("GET", DEFAULT), 0.0);
+		assertEquals(0.001, lexicon.getFrequency("getFrequency", DEFAULT), 0.0);
+		assertEquals(0.01, lexicon.getFrequency("HTMLParser", DEFAULT), 0.0);
+		assertEquals(DEFAULT, lexicon.getFrequency("foo2bar", DEFAULT), 0.0);
+	}
+
+	@Test
+	public void emptyLexiconReturnsDefault() {
+		FrequencyLexicon lexicon = FrequencyLexicon.create(new LinkedHashMap<>());
+
+		assertEquals(DEFAULT, lexicon.getFrequency("word", DEFAULT), 0.0);
+	}
+
+	@Test
+	public void loadSkipsCommentsAndBlankLines() throws IOException {
+		File file = folder.newFile("frequencies.txt");
+		Files.write(file.toPath(), "# comment\nlist 0.2\n\nmap 0.1\n".getBytes(StandardCharsets.UTF_8));
+
+		FrequencyLexicon lexicon = FrequencyLexicon.load(file);
+
+		assertEquals(2, lexicon.size());
+		assertEquals(0.2, lexicon.getFrequency("list", DEFAULT), 0.0);
+		assertEquals(0.1, lexicon.getFrequency("map", DEFAULT), 0.0);
+	}
+
+	@Test
+	public void loadIsIndependentOfDefaultLocaleAndCharset() throws IOException {
+		File file = folder.newFile("frequencies.txt");
+		Files.write(file.toPath(), "# comment\nTITLE 0.2\n\ngr\u00f6\u00dfe 0.1\nTitle 0.3\n"
+				.getBytes(StandardCharsets.UTF_8));
+		Locale defaultLocale = Locale.getDefault();
+		FrequencyLexicon lexicon;
+		try {
+			Locale.setDefault(new Locale("tr", "TR"));
+			lexicon = FrequencyLexicon.load(file);
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+
+		assertEquals(2, lexicon.size());
+		assertEquals(0.3, lexicon.getFrequency("title", DEFAULT), 0.0);
+		assertEquals(0.1, lexicon.getFrequency("Gr\u00f6\u00dfe", DEFAULT), 0.0);
+	}
+}
@@ -0,0 +1,78 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class GazeGridIndexTest {
+
+	/**
+	 * 1 px per mm at 573 mm distance, i.e. about 5 px per degree of visual
+	 * angle, words are indexed by their centers
+	 */
+	private final GazeGridIndex index = new GazeGridIndex(32, 0.0, 1.0, 1.0, 573.0);
+
+	private final Fixation.Word near = word(1, 105, 100);
+	private final Fixation.Word inOtherCell = word(2, 100, 125);
+	private final Fixation.Word far = word(3, 300, 100);
+
+	@Test
+	public void findsWordsWithinVisualAngleAcrossCells() {
+		add(near, inOtherCell, far);
+
+		assertEquals(new HashSet<>(Arrays.asList(near, inOtherCell)),
+				new HashSet<>(index.getWordsWithin(100, 100, 6.0)));
+	}
+
+	@Test
+	public void findsClosestWord() {
+		add(inOtherCell, near, far);
+
+		assertSame(near, index.getClosestWordWithin(100, 100, 3.0));
+		assertSame(far, index.getClosestWordWithin(290, 100, 3.0));
+		assertNull(index.getClosestWordWithin(200, 300, 3.0));
+	}
+
+	@Test
+	public void findsWordsAtNegativeCoordinates() {
+		Fixation.Word offScreen = word(4, -40, -5);
+		add(offScreen);
+
+		assertEquals(Arrays.asList(offScreen), index.getWordsWithin(-35, 0, 2.0));
+	}
+
+	@Test
+	public void wordsAreAddedOnce() {
+		add(near, word(1, 105, 100));
+
+		assertEquals(1, index.size());
+		assertEquals(1, index.getWordsWithin(100, 100, 2.0).size());
+	}
+
+	@Test
+	public void longWordIsFoundNearItsEnd() {
+		GazeGridIndex index = new GazeGridIndex(32, 8.0, 1.0, 1.0, 573.0);
+		// 20 characters of 8 px, i.e. from 20 to 180 px
+		Fixation.Word identifier = new Fixation.Word("A.java", 1, 0, 20, "aVeryLongIdentifier_", 100, 100);
+		index.add(identifier);
+
+		assertSame(identifier, index.getClosestWordWithin(175, 102, 1.0));
+		assertEquals(Arrays.asList(identifier), index.getWordsWithin(25, 100, 1.0));
+		assertNull(index.getClosestWordWithin(190, 100, 1.0));
+	}
+
+	private void add(Fixation.Word... words) {
+		for(Fixation.Word word: words) {
+			index.add(word);
+		}
+	}
+
+	private static Fixation.Word word(int column, int x, int y) {
+		return new Fixation.Word("A.java", 1, column, 1, "w"+column, x, y);
+	}
+}
@@ -0,0 +1,73 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LexicalFeatureColumnsTest {
+
+	private final LexicalFeatureColumns columns = new LexicalFeatureColumns();
+
+	@Test
+	public void rowsAreMapViews() {
+		Map<String,Object> row = columns.add(features("graphemic", "List"));
+
+		row.put("rare", Boolean.TRUE);
+		assertEquals(features("graphemic", "List", "rare", Boolean.TRUE), row);
+		assertEquals(Boolean.TRUE, row.remove("rare"));
+
+		assertEquals(features("graphemic", "List"), row);
+		assertNull(row.get("rare"));
+		assertEquals(2, columns.getColumnCount());
+	}
+
+	@Test
+	public void equalValuesAreShared() {
+		Map<String,Object> first = columns.add(features("graphemic", new String("List")));
+		Map<String,Object> second = columns.add(features("graphemic", new String("List")));
+
+		assertSame(first.get("graphemic"), second.get("graphemic"));
+	}
+
+	@Test
+	public void freedRowsAreDetachedAndReused() {
+		Map<String,Object> removed = columns.add(features("graphemic", "List"));
+		columns.add(features("graphemic", "Map"));
+
+		columns.free(removed);
+		Map<String,Object> added = columns.add(features("other", "Set"));
+
+		assertEquals(features("graphemic", "List"), removed);
+		assertEquals(features("other", "Set"), added);
+		assertEquals(2, columns.getRowCount());
+	}
+
+	@Test
+	public void rareColumnsAreSparse() {
+		for(int i=0;i<5000;i++) {
+			Map<String,Object> features = features("graphemic", "w"+i);
+			if(i%1000 == 0) {
+				features.put("rare", i);
+			}
+			columns.add(features);
+		}
+
+		// A dense column for the graphemics and 5 sparse cells for the rare feature
+		assertEquals(8192+5, columns.getCellCount());
+		assertEquals(Integer.valueOf(3000), columns.getRow(3000).get("rare"));
+		assertEquals("w4999", columns.getRow(4999).get("graphemic"));
+	}
+
+	private static Map<String,Object> features(Object... namesAndValues) {
+		Map<String,Object> features = new HashMap<>();
+		for(int i=0;i<namesAndValues.length;i+=2) {
+			features.put((String)namesAndValues[i], namesAndValues[i+1]);
+		}
+		return features;
+	}
+}
@@ -0,0 +1,116 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LogEntryBufferTest {
+
+	private final List<LogEntry> read = new ArrayList<>();
+	private final List<Fixation> prepared = new ArrayList<>();
+
+	@Test
+	public void bufferIsRefilledOnlyWhenEmpty() throws Exception {
+		Saccade s1 = saccade(1);
+		Fixation f1 = fixation(2, "a"), f2 = fixation(4, "b"), f3 = fixation(6, "c");
+		LogEntryBuffer buffer = buffer(2, s1, f1, saccade(3), f2, saccade(5), f3);
+
+		assertSame(s1, buffer.poll());
+		assertEquals(4, read.size());
+		assertEquals(Arrays.asList(f1, f2), prepared);
+
+		for(int i=0;i<3;i++) {
+			buffer.poll();
+		}
+		assertEquals(4, read.size());
+
+		// The refill reads the last fixation and the end of the events
+		buffer.poll();
+		assertEquals(7, read.size());
+		assertEquals(Arrays.asList(f1, f2, f3), prepared);
+	}
+
+	@Test
+	public void entriesAreBufferedUntilTheNextEntryIsNeededForMerging() throws Exception {
+		LogEntryBuffer buffer = buffer(2, saccade(1), fixation(2, "a"), saccade(3), saccade(4), fixation(5, "b"), saccade(6));
+		buffer.poll();
+
+		// The saccades 3 and 4 are merged, because the fixation 5 follows them.
+		// Whether the fixation 5 is merged depends on the entry after it.
+		assertTrue(buffer.areBuffered(null, 2));
+		assertFalse(buffer.areBuffered(null, 3));
+		assertTrue(buffer.areBuffered(saccade(0), 3));
+	}
+
+	@Test
+	public void exhaustedEventsAreBuffered() throws Exception {
+		LogEntryBuffer buffer = buffer(2, saccade(1), fixation(2, "a"));
+		buffer.poll();
+		buffer.poll();
+
+		assertTrue(buffer.areBuffered(null, 1));
+		assertNull(buffer.poll());
+		assertEquals(0, buffer.size());
+	}
+
+	@Test
+	public void successiveFixationsOnTheSameWordsAreMerged() {
+		assertTrue(LogEntryBuffer.isMergeable(fixation(1, "a"), fixation(2, "a")));
+		assertFalse(LogEntryBuffer.isMergeable(fixation(1, "a"), fixation(2, "b")));
+		assertTrue(LogEntryBuffer.isMergeable(saccade(1), saccade(2)));
+		assertFalse(LogEntryBuffer.isMergeable(saccade(1), fixation(2, "a")));
+	}
+
+	@Test
+	public void unbufferedEntriesAreReadOneAtATime() throws Exception {
+		LogEntryBuffer buffer = buffer(0, saccade(1), fixation(2, "a"));
+
+		buffer.poll();
+
+		assertEquals(1, read.size());
+		assertTrue(prepared.isEmpty());
+		assertFalse(buffer.areBuffered(null, 1));
+	}
+
+	@Test
+	public void clearDiscardsEntriesAndEndOfData() throws Exception {
+		LogEntryBuffer buffer = buffer(4, saccade(1));
+		buffer.poll();
+		assertTrue(buffer.areBuffered(null, 1));
+
+		buffer.clear();
+
+		assertFalse(buffer.areBuffered(null, 1));
+	}
+
+	private LogEntryBuffer buffer(int fixations, LogEntry... entries) {
+		Iterator<LogEntry> iterator = Arrays.asList(entries).iterator();
+		LogEntryBuffer buffer = new LogEntryBuffer(() -> {
+			LogEntry entry = iterator.hasNext()?iterator.next():null;
+			read.add(entry);
+			return entry;
+		}, prepared::add);
+		buffer.setFixations(fixations);
+		return buffer;
+	}
+
+	private static Saccade saccade(int number) {
+		return new Saccade("g", 1, "p", "c", number, number*100, 20);
+	}
+
+	private static Fixation fixation(int number, String word) {
+		return new Fixation("g", 1, "p", "c", number, number*100, 200, 0, 0, null,
+				new Fixation.Word("A.java", 1, 0, word.length(), word, 0, 0),
+				Collections.<Fixation.Word>emptySet());
+	}
+}
@@ -0,0 +1,142 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import de.monochromata.jactr.tls.SpatialInfo;
+
+public class PositionIndexTest {
+
+	private final PositionIndex<SpatialInfo> index = new PositionIndex<>(Function.identity());
+
+	@Test
+	public void firstObjectAddedAtAPositionIsFound() {
+		SpatialInfo first = span("A", 1, 4, 3), second = span("A", 1, 4, 1);
+		index.add(first);
+		index.add(second);
+		assertSame(first, index.get("A", 1, 4));
+
+		index.freeze();
+
+		assertSame(first, index.get("A", 1, 4));
+		assertSame(second, index.get("A", 1, 4, object -> object.getLength() == 1));
+		assertNull(index.get("A", 1, 5));
+		assertNull(index.get("B", 1, 4));
+	}
+
+	@Test
+	public void narrowestCoveringObjectIsFound() {
+		SpatialInfo wide = span("A", 1, 0, 10), narrow = span("A", 1, 2, 3);
+		index.add(wide);
+		index.add(narrow);
+		index.freeze();
+		SpatialInfo narrower = span("A", 1, 3, 1);
+		index.add(narrower);
+
+		assertSame(narrow, index.getCovering("A", 1, 4, object -> true));
+		assertSame(narrower, index.getCovering("A", 1, 3, object -> true));
+		assertSame(wide, index.getCovering("A", 1, 9, object -> true));
+		assertNull(index.getCovering("A", 1, 10, object -> true));
+		assertNull(index.getCovering("A", 2, 0, object -> true));
+	}
+
+	@Test
+	public void objectsAddedAfterFreezingAreFoundBeforeAndAfterRefreezing() {
+		index.add(span("A", 1, 0, 1));
+		index.freeze();
+		SpatialInfo added = span("A", 2, 0, 1);
+		index.add(added);
+		assertSame(added, index.get("A", 2, 0));
+
+		index.freeze();
+
+		assertSame(added, index.get("A", 2, 0));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void removalsAffectFrozenAndOverflowObjectsOfTheGivenUriOnly() {
+		SpatialInfo frozen = span("A", 1, 0, 1), kept = span("A", 1, 2, 1), other = span("B", 1, 0, 1);
+		index.add(frozen);
+		index.add(kept);
+		index.add(other);
+		index.freeze();
+		SpatialInfo overflow = span("A", 3, 0, 1);
+		index.add(overflow);
+
+		index.removeAll("A", object -> object == frozen || object == overflow);
+
+		assertNull(index.get("A", 1, 0));
+		assertNull(index.get("A", 3, 0));
+		assertSame(kept, index.get("A", 1, 2));
+		assertSame(kept, index.getCovering("A", 1, 2, object -> true));
+		assertSame(other, index.get("B", 1, 0));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void removalIsRestrictedToTheGivenLine() {
+		SpatialInfo first = span("A", 1, 0, 1), second = span("A", 2, 0, 1);
+		index.add(first);
+		index.add(second);
+		index.freeze();
+
+		index.remove("A", 1, object -> true);
+
+		assertNull(index.get("A", 1, 0));
+		assertSame(second, index.get("A", 2, 0));
+	}
+
+	@Test
+	public void readersNeverMissObjectsWhileTheIndexIsRefrozen() throws InterruptedException {
+		SpatialInfo initial = span("A", 0, 0, 1);
+		index.add(initial);
+		index.freeze();
+		int count = 5000;
+		List<SpatialInfo> added = new ArrayList<>(count);
+		for(int i=1;i<=count;i++) {
+			added.add(span("A", i, 0, 1));
+		}
+		AtomicInteger published = new AtomicInteger(0);
+		AtomicReference<String> failure = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			while(failure.get() == null && published.get() < count) {
+				int line = published.get();
+				if(index.get("A", 0, 0) != initial) {
+					failure.set("Missed the initial object");
+				} else if(line > 0 && index.get("A", line, 0) == null) {
+					failure.set("Missed the object at line "+line);
+				} else if(line > 0 && index.getCovering("A", line, 0, object -> true) == null) {
+					failure.set("Missed the covering object at line "+line);
+				}
+			}
+		});
+		reader.start();
+		for(int i=1;i<=count;i++) {
+			index.add(added.get(i-1));
+			published.set(i);
+			if(i%50 == 0) {
+				index.freeze();
+			}
+		}
+		reader.join();
+
+		assertNull(failure.get());
+		assertEquals(count+1, index.size());
+		assertTrue(index.isFrozen());
+	}
+
+	private static SpatialInfo span(String uri, int line, int column, int length) {
+		return new SpatialInfo(uri, line, column, length);
+	}
+}
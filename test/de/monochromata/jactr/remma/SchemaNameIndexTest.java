@@ -0,0 +1,84 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SchemaNameIndexTest {
+
+	private final SchemaNameIndex index = new SchemaNameIndex();
+
+	@Test
+	public void idsAreReturnedInOrderOfAddition() {
+		index.add("List", "CS#List");
+		index.add("List", "keyword");
+
+		assertEquals(Arrays.asList("CS#List", "keyword"), index.get("List"));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	public void onlyTheExactGraphemicIsMatched() {
+		index.add("java.util.List", "CS#java.util.List");
+
+		assertNull(index.get("List"));
+		assertFalse(index.containsKey("List"));
+	}
+
+	@Test
+	public void schemataAreFoundBySimpleAndPartiallyQualifiedNames() {
+		index.add("java.util.List", "CS#java.util.List");
+		index.add("java.awt.List", "CS#java.awt.List");
+		index.add("List[]", "CS#List[]");
+		index.add("ArrayList", "CS#java.util.ArrayList");
+
+		assertEquals(new HashSet<>(Arrays.asList("CS#java.util.List", "CS#java.awt.List", "CS#List[]")),
+				new HashSet<>(index.getByName("List")));
+		assertEquals(Arrays.asList("CS#java.util.List"), index.getByName("util.List"));
+		assertEquals(Arrays.asList("CS#java.util.ArrayList"), index.getByName("ArrayList"));
+		assertTrue(index.getByName("Map").isEmpty());
+	}
+
+	@Test
+	public void removedSchemaIsNotFoundByName() {
+		index.add("java.util.List", "CS#java.util.List");
+		index.add("java.awt.List", "CS#java.awt.List");
+
+		index.remove("java.util.List", "CS#java.util.List");
+
+		assertEquals(Arrays.asList("CS#java.awt.List"), index.getByName("List"));
+		index.remove("java.awt.List", "CS#java.awt.List");
+		assertTrue(index.getByName("List").isEmpty());
+	}
+
+	@Test
+	public void repeatedAdditionIsIgnored() {
+		index.add("List", "CS#List");
+		index.add("List", "CS#List");
+
+		assertEquals(Arrays.asList("CS#List"), index.get("List"));
+		assertEquals(Arrays.asList("CS#List"), index.getByName("List"));
+	}
+
+	@Test
+	public void removedIdIsNoLongerReturned() {
+		index.add("List", "CS#List");
+		index.add("List", "keyword");
+		List<String> before = index.get("List");
+
+		index.remove("List", "CS#List");
+
+		assertEquals(Arrays.asList("keyword"), index.get("List"));
+		assertEquals(Arrays.asList("CS#List", "keyword"), before);
+		index.remove("List", "keyword");
+		assertNull(index.get("List"));
+		assertEquals(0, index.size());
+	}
+}
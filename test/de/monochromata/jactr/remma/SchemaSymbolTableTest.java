@@ -0,0 +1,116 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SchemaSymbolTableTest {
+
+	private final SchemaSymbolTable table = new SchemaSymbolTable();
+
+	@Test
+	public void referringSymbolsFollowImportsTransitively() {
+		int a = table.define("A", features());
+		int b = table.define("B", features("featuresOf:A"));
+		int c = table.define("C", features("featuresOf:B"));
+		int d = table.define("D", features("A"));
+		table.define("E", features("B"));
+
+		assertEquals(symbols(a, b, c, d), table.getReferringSymbols(Collections.singleton(a)));
+	}
+
+	@Test
+	public void redefinedSchemaNoLongerRefersToOldFeatures() {
+		int a = table.define("A", features());
+		table.define("B", features("featuresOf:A"));
+		table.define("B", features());
+
+		assertEquals(symbols(a), table.getReferringSymbols(Collections.singleton(a)));
+	}
+
+	@Test
+	public void undefinedSchemaNoLongerRefersToFeatures() {
+		int a = table.define("A", features());
+		int b = table.define("B", features("A"));
+		table.undefine(b);
+
+		assertEquals(symbols(a), table.getReferringSymbols(Collections.singleton(a)));
+	}
+
+	@Test
+	public void addedFeatureRefers() {
+		int a = table.define("A", features());
+		int b = table.define("B", features());
+		table.addFeature(b, table.encode("A"));
+
+		assertEquals(symbols(a, b), table.getReferringSymbols(Collections.singleton(a)));
+	}
+
+	@Test
+	public void compactKeepsDeclaredFeaturesAtTheOffsetOfEmptyCurrentFeatures() {
+		// The empty slice is stored at offset 0, like the declared features of B
+		table.define("A", features());
+		int b = table.define("B", features("X"));
+		int c = table.define("C", features("Y", "Z"));
+		table.setFeatures(b, features());
+
+		table.compact();
+
+		assertArrayEquals(features("X"), table.getDeclaredFeatures(b));
+		assertArrayEquals(features(), table.getFeatures(b));
+		assertArrayEquals(features("Y", "Z"), table.getFeatures(c));
+	}
+
+	@Test
+	public void compactDiscardsReplacedSlices() {
+		int a = table.define("A", features("X", "Y"));
+		int b = table.define("B", features("featuresOf:A", "Z"));
+		table.resolveFeaturesOf(Arrays.asList(a, b));
+		table.setFeatures(a, features("X"));
+		table.restoreDeclaredFeatures(a);
+		int poolSize = table.getPoolSize();
+
+		int discarded = table.compact();
+
+		assertEquals(poolSize-discarded, table.getPoolSize());
+		assertArrayEquals(features("X", "Y"), table.getFeatures(a));
+		assertArrayEquals(features("X", "Y"), table.getDeclaredFeatures(a));
+		assertArrayEquals(features("Z", "X", "Y"), table.getFeatures(b));
+		assertArrayEquals(features("featuresOf:A", "Z"), table.getDeclaredFeatures(b));
+	}
+
+	@Test
+	public void equalSlicesAreShared() {
+		table.define("A", features("X", "Y"));
+		int poolSize = table.getPoolSize();
+
+		table.define("B", features("X", "Y"));
+
+		assertEquals(poolSize, table.getPoolSize());
+	}
+
+	@Test
+	public void addedFeatureIsAlsoDeclared() {
+		int a = table.define("A", features("X"));
+
+		table.addFeature(a, table.encode("Y"));
+		table.compact();
+
+		assertArrayEquals(features("X", "Y"), table.getFeatures(a));
+		assertArrayEquals(features("X", "Y"), table.getDeclaredFeatures(a));
+	}
+
+	private int[] features(String... features) {
+		return table.encode(Arrays.asList(features));
+	}
+
+	private static Set<Integer> symbols(Integer... symbols) {
+		return new HashSet<>(Arrays.asList(symbols));
+	}
+}
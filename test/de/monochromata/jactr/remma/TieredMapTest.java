@@ -0,0 +1,90 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TieredMapTest {
+
+	private final TieredMap<String,Integer> map = new TieredMap<>();
+
+	@Test
+	public void entriesAreFoundBeforeAndAfterFreezing() {
+		map.put("a", 1);
+		map.put("b", 2);
+		assertEquals(Integer.valueOf(1), map.get("a"));
+
+		map.freeze();
+		map.put("c", 3);
+
+		assertEquals(Integer.valueOf(1), map.get("a"));
+		assertEquals(Integer.valueOf(3), map.get("c"));
+		assertEquals(3, map.size());
+		assertEquals(1, map.getOverlaySize());
+	}
+
+	@Test
+	public void removalOfFrozenEntriesIsRecordedUntilTheNextFreeze() {
+		map.put("a", 1);
+		map.put("b", 2);
+		map.freeze();
+
+		assertEquals(Integer.valueOf(1), map.remove("a"));
+
+		assertNull(map.get("a"));
+		assertFalse(map.containsKey("a"));
+		assertEquals(1, map.size());
+		map.freeze();
+		assertNull(map.get("a"));
+		assertEquals(1, map.size());
+		assertEquals(0, map.getOverlaySize());
+	}
+
+	@Test
+	public void replacedEntriesOverlayFrozenEntries() {
+		map.put("a", 1);
+		map.freeze();
+
+		assertEquals(Integer.valueOf(1), map.put("a", 2));
+
+		assertEquals(Integer.valueOf(2), map.get("a"));
+		assertEquals(1, map.size());
+		map.freeze();
+		assertEquals(Integer.valueOf(2), map.get("a"));
+	}
+
+	@Test
+	public void nullKeysAreNotFound() {
+		map.put("a", 1);
+		map.freeze();
+
+		assertNull(map.get(null));
+		assertFalse(map.containsKey(null));
+		assertNull(map.remove(null));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void equalsHashMapWithSameEntries() {
+		Map<String,Integer> expected = new HashMap<>();
+		for(int i=0;i<100;i++) {
+			map.put("k"+i, i);
+			expected.put("k"+i, i);
+			if(i%10 == 0)
+				map.freeze();
+		}
+		map.remove("k5");
+		expected.remove("k5");
+		map.entrySet().removeIf(entry -> entry.getValue() == 7);
+		expected.remove("k7");
+
+		assertEquals(expected, map);
+		assertTrue(map.entrySet().containsAll(expected.entrySet()));
+	}
+}
@@ -0,0 +1,65 @@
+package de.monochromata.jactr.remma;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TraceBufferTest {
+
+	@Test
+	public void oldestEventsAreOverwritten() {
+		TraceBuffer buffer = new TraceBuffer(3);
+		for(int i=0;i<5;i++) {
+			buffer.add(TraceBuffer.Kind.FIXATION_STARTED, i, Double.NaN, "f"+i);
+		}
+
+		List<String> subjects = new ArrayList<>();
+		List<Long> sequences = new ArrayList<>();
+		buffer.forEach((sequence, kind, time, value, detail, subject) -> {
+			sequences.add(sequence);
+			subjects.add((String)subject);
+		});
+
+		assertEquals(3, buffer.size());
+		assertEquals(5, buffer.getRecorded());
+		assertEquals(Arrays.asList(2L, 3L, 4L), sequences);
+		assertEquals(Arrays.asList("f2", "f3", "f4"), subjects);
+	}
+
+	@Test
+	public void dumpWritesDecisionsByName() {
+		TraceBuffer buffer = new TraceBuffer(4);
+		buffer.add(TraceBuffer.Kind.ENCODING_DURATION, Double.NaN, 0.25, 1, "word");
+		buffer.add(TraceBuffer.Decision.REFIXATION, 1.5, 0.1, "word");
+
+		StringWriter writer = new StringWriter();
+		buffer.dump(new PrintWriter(writer));
+
+		assertEquals(Arrays.asList(
+				"0\tENCODING_DURATION\tNaN\t0.25\t1\tword",
+				"1\tDECISION\t1.5\t0.1\tREFIXATION\tword"),
+				Arrays.asList(writer.toString().split("\\r?\\n")));
+	}
+
+	@Test
+	public void clearDiscardsEvents() {
+		TraceBuffer buffer = new TraceBuffer(2);
+		buffer.add(TraceBuffer.Kind.END_OF_DATA, 0.0, Double.NaN, null);
+
+		buffer.clear();
+
+		assertEquals(0, buffer.size());
+		assertEquals(0, buffer.getRecorded());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void capacityMustBePositive() {
+		new TraceBuffer(0);
+	}
+}